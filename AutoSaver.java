@@ -0,0 +1,116 @@
+// Writes game snapshots to disk on a background thread, so saving never holds up the game engine or the GUI.
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+
+
+public class AutoSaver implements Runnable {
+
+	private LinkedHashMap<File, byte[]> pending; // snapshots waiting to be written, at most one per file
+	private boolean isWriting; // only one snapshot is written at a time, whichever thread is writing it
+
+
+	public AutoSaver() {
+		pending = new LinkedHashMap<File, byte[]>();
+	}
+
+	// =====================================
+
+	public void start() {
+		Thread thread = new Thread(this, "AutoSaver");
+		thread.setDaemon(true); // an interrupted write only ever loses the temp file
+		thread.start();
+		// the thread doesn't hold up exiting, so whatever is still waiting is written on the way out:
+		Runtime.getRuntime().addShutdownHook(new Thread("AutoSaver shutdown") {
+			public void run() {
+				while (writeNext(false)) {
+				}
+			}
+		});
+	}
+
+	// =====================================
+
+	public synchronized void submit(File target, byte[] snapshot) {
+		// if an older snapshot for this file hasn't been written yet it is simply replaced
+		pending.put(target, snapshot);
+		notifyAll();
+	}
+
+	// =====================================
+
+	public void run() {
+		while (writeNext(true)) {
+		}
+	}
+
+	// =====================================
+
+	private boolean writeNext(boolean shouldWait) {
+		// Writes the oldest waiting snapshot, after any write already in progress has finished. If there are none it
+		// either waits for one or returns false straight away.
+		File target;
+		byte[] snapshot;
+		synchronized (this) {
+			while (isWriting || (shouldWait && pending.isEmpty())) {
+				try {
+					wait();
+				}
+				catch (InterruptedException e) {
+					return false;
+				}
+			}
+			if (pending.isEmpty()) {
+				return false;
+			}
+			target = pending.keySet().iterator().next();
+			snapshot = pending.remove(target);
+			isWriting = true;
+		}
+
+		try {
+			writeAtomically(target, snapshot);
+			System.out.println("Saved game to " + target + ".");
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			System.err.println("There was an error while saving the game to " + target + ".");
+		}
+		finally {
+			synchronized (this) {
+				isWriting = false;
+				notifyAll();
+			}
+		}
+		return true;
+	}
+
+	// =====================================
+
+	private void writeAtomically(File target, byte[] snapshot) throws IOException {
+		// write everything to a temp file first so a crash mid-write never leaves a broken save behind
+		File temp = new File(target.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temp);
+		try {
+			out.write(snapshot);
+			out.getFD().sync();
+		}
+		finally {
+			out.close();
+		}
+
+		try {
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+// Plays a batch of headless games at once, one per core, with the same strategy and consecutive seeds, and writes
+// a CSV of how each one went. Used for checking balance changes over many games rather than one.
+
+import core.*;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+public class BatchRunner {
+
+	private static final int DEFAULT_TICK_LENGTH = 50; // in ms of game time
+	private int gameCount;
+	private long firstSeed;
+	private int maxDays; // each game stops after this many days (0 means it's played until it's over)
+	private int tickLength;
+	private Class<?> strategyClass; // a ScriptedStrategy or a Policy; a new one plays each game
+	private int threadCount;
+	private ArrayList<HeadlessEngine> results; // in seed order
+
+
+	public static void main(String[] args) throws Exception {
+		// usage: java BatchRunner games [maxDays] [strategyClass] [outputFile] [firstSeed] [threads]
+		// (the strategy class can also be a Policy, e.g. core.GreedyExpander)
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int days = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		String strategyName = args.length > 2 ? args[2] : "IdleStrategy";
+		File output = new File(args.length > 3 ? args[3] : "batch.csv");
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+		int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+		Class<?> strategy = Class.forName(strategyName);
+		if (!ScriptedStrategy.class.isAssignableFrom(strategy) && !Policy.class.isAssignableFrom(strategy)) {
+			throw new IllegalArgumentException(strategyName + " is neither a ScriptedStrategy nor a Policy");
+		}
+		BatchRunner runner = new BatchRunner(games, seed, days, DEFAULT_TICK_LENGTH, strategy, threads);
+		runner.run();
+		PrintWriter out = new PrintWriter(new FileWriter(output));
+		try {
+			runner.writeCsv(out);
+		}
+		finally {
+			out.close();
+		}
+		System.out.println(runner.getSummary());
+		System.out.println("Results written to " + output + ".");
+	}
+
+	public BatchRunner(int games, long seed, int days, int tick, Class<?> strategy, int threads) {
+		gameCount = games;
+		firstSeed = seed;
+		maxDays = days;
+		tickLength = tick;
+		strategyClass = strategy;
+		threadCount = threads;
+	}
+
+	// =====================================
+
+	public void run() throws InterruptedException, ExecutionException {
+		// Every game gets its own instance, map and strategy, and is played start to finish on one thread, so the
+		// games share nothing but the (immutable) rules.
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		try {
+			ArrayList<Future<HeadlessEngine>> futures = new ArrayList<Future<HeadlessEngine>>();
+			for (int i = 0; i < gameCount; i++) {
+				final long seed = firstSeed + i;
+				futures.add(pool.submit(new Callable<HeadlessEngine>() {
+					public HeadlessEngine call() throws Exception {
+						HeadlessEngine engine = new HeadlessEngine(new GameInstance(seed), tickLength, maxDays, 0);
+						engine.setStrategy(createStrategy());
+						engine.run();
+						return engine;
+					}
+				}));
+			}
+			results = new ArrayList<HeadlessEngine>();
+			for (Future<HeadlessEngine> f: futures) {
+				results.add(f.get());
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// =====================================
+
+	private ScriptedStrategy createStrategy() throws ReflectiveOperationException {
+		Object strategy = strategyClass.getDeclaredConstructor().newInstance();
+		if (strategy instanceof Policy) {
+			return new PolicyDriver((Policy)strategy);
+		}
+		return (ScriptedStrategy)strategy;
+	}
+
+	// =====================================
+
+	public void writeCsv(PrintWriter out) throws IOException {
+		// one row per game; the gold columns are the monarch's gold as each day began (blank after a game ended)
+		int days = 0;
+		for (HeadlessEngine e: results) {
+			days = Math.max(days, e.getGoldByDay().size());
+		}
+		StringBuilder header = new StringBuilder("seed,stop_reason,victory,days,ticks,elapsed_ms,peak_danger");
+		for (int d = 0; d < days; d++) {
+			header.append(",gold_day_" + (d + 1));
+		}
+		out.println(header);
+
+		for (HeadlessEngine e: results) {
+			GameInstance game = e.getInstance();
+			StringBuilder row = new StringBuilder();
+			row.append(game.getSeed()).append(',');
+			row.append(e.getStopReason()).append(',');
+			if (e.getStopReason() == HeadlessEngine.StopReason.GAME_OVER) {
+				row.append(game.getGameResult() ? 1 : 0);
+			}
+			row.append(',').append(game.getDayCount());
+			row.append(',').append(e.getTickCount());
+			row.append(',').append(e.getElapsedTime());
+			row.append(',').append(String.format(Locale.ROOT, "%.2f", e.getPeakDangerLevel()));
+			for (int d = 0; d < days; d++) {
+				row.append(',');
+				if (d < e.getGoldByDay().size()) {
+					row.append(e.getGoldByDay().get(d));
+				}
+			}
+			out.println(row);
+		}
+		if (out.checkError()) {
+			throw new IOException("Couldn't write batch results");
+		}
+	}
+
+	// =====================================
+
+	public String getSummary() {
+		int victories = 0;
+		int defeats = 0;
+		long totalDays = 0;
+		double totalPeakDanger = 0.0;
+		for (HeadlessEngine e: results) {
+			if (e.getStopReason() == HeadlessEngine.StopReason.GAME_OVER) {
+				if (e.getInstance().getGameResult()) {
+					victories++;
+				}
+				else {
+					defeats++;
+				}
+			}
+			totalDays += e.getInstance().getDayCount();
+			totalPeakDanger += e.getPeakDangerLevel();
+		}
+		int n = results.size();
+		return n + " games with " + strategyClass.getName() + ": " + victories + " won, " + defeats + " lost"
+			+ String.format(Locale.ROOT, " (win rate %.1f%%)", n > 0 ? 100.0 * victories / n : 0.0)
+			+ String.format(Locale.ROOT, ", %.1f days survived and peak danger level %.1f on average",
+				n > 0 ? (double)totalDays / n : 0.0, n > 0 ? totalPeakDanger / n : 0.0);
+	}
+
+	// ========== ACCESSORS =============
+
+	public ArrayList<HeadlessEngine> getResults() {
+		return results;
+	}
+
+
+}
\ No newline at end of file
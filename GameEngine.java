@@ -2,51 +2,129 @@
 
 import core.*;
 import gui.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
 
 
 public class GameEngine implements Runnable {
 
-	private static final int dayLength = 100000; // in ms
-	private int nightLength; // = 80000;
-	private static final int delay = 50; //in ms
-	private GameInstance instance;
+	private static final int TICK_LENGTH = 50; // ms of game time covered by each update
+	private static final int FRAME_INTERVAL = 33; // least ms of real time between repaints
+	private static final int CLOCK_FRAME_INTERVAL = 250; // least ms between repaints when only time has passed
+	private static final int MAX_CATCH_UP_TICKS = 5; // most updates run back-to-back when the engine has fallen behind
+	private static final String AUTOSAVE_FILENAME = "autosave.dat";
+	private volatile GameInstance instance; // replaced when the game is rewound
 	private GUI gui;
-	private boolean isPaused;
+	private volatile boolean isPaused;
+	private volatile GameInstance renderFrame; // copy of the game for the GUI to paint from, replaced for every repaint
+	private AutoSaver saver;
+	private int autosaveInterval; // in days, 0 turns autosaving off
+	private int lastAutosaveDay;
+	private volatile String requestedSave; // file the player asked to save to, snapshotted at the next tick boundary
+	private GameMetrics metrics;
+	private EnumSet<GameInstance.Change> unshownChanges; // what has changed in the game since the GUI was last asked to repaint
+	private volatile CommandLogReader replay; // the log being replayed in place of the player's commands, if any
+	private GameHistory history; // null if the game can't be rewound
+	private volatile int requestedRewind; // ticks the player asked to go back, done at the next tick boundary
+	private File commandLogFile; // where the game's commands are being recorded, if anywhere
+	private volatile Thread engineThread; // the thread running the engine, once it has started
 
 
-	public GameEngine(GameInstance i, GUI g) {
+	public GameEngine(GameInstance i, GUI g, AutoSaver s, int interval, GameMetrics m) {
 		instance = i;
 		gui = g;
-		nightLength = (int)(dayLength * instance.NIGHT_TO_DAY_RATIO);
+		saver = s;
+		autosaveInterval = interval;
+		metrics = m;
+		instance.setMetrics(metrics);
+		lastAutosaveDay = instance.getDayCount();
+		renderFrame = instance.copy();
+		unshownChanges = EnumSet.noneOf(GameInstance.Change.class);
 	}
 
 	// =====================================
 
-	public synchronized void run() {
+	public void run() {
+		// Fixed timestep: real time is measured with nanoTime and banked in an accumulator, and the game is
+		// advanced in whole ticks of exactly TICK_LENGTH game time, so it plays out the same however often
+		// the GUI repaints or however late the thread wakes up.
+		long tickNanos = TICK_LENGTH * 1000000L;
+		long previousTime = System.nanoTime();
+		long accumulator = 0;
+		long lastFrameTime = previousTime;
+		boolean wasPaused = false;
+		engineThread = Thread.currentThread();
 		try {
 			while (true) {
-				wait(delay);
-
-				if (!isPaused) {
-					double progress;
-					if (instance.isDaytime()) {
-						progress = (double)delay / dayLength;
-					}
-					else {
-						progress = (double)delay / nightLength;
-					}
-
-					// where the magic happens:
-					try {
-						instance.update(progress);
-					}
-					catch (GameOverException e) {
-						isPaused = true;
-						gui.onGameOver();
-					}
+				long now = System.nanoTime();
+				accumulator += now - previousTime;
+				previousTime = now;
+
+				int ticks = 0;
+				boolean isGameOver = false;
+				if (isPaused || wasPaused) {
+					// Time spent paused doesn't count towards the next tick. Nothing advances, but the player can
+					// still act (or save, or rewind), which is what woke the engine up.
+					accumulator = 0;
+					isGameOver = tick();
+					ticks++;
+				}
+				while (accumulator >= tickNanos && ticks < MAX_CATCH_UP_TICKS && !isGameOver) {
+					isGameOver = tick();
+					accumulator -= tickNanos;
+					ticks++;
+				}
+				if (accumulator >= tickNanos) {
+					// still behind after catching up as far as allowed (e.g. after a long stall), so let the
+					// game fall behind real time rather than spending every frame catching up:
+					accumulator = 0;
+					metrics.increment(GameMetrics.Counter.ENGINE_STALLS);
+				}
+
+				if (ticks > 0) {
+					unshownChanges.addAll(instance.takeChanges());
+				}
+				if (isGameOver || (!unshownChanges.isEmpty() && now >= getNextFrameTime(lastFrameTime))) {
+					// Copying the game costs far more than a tick, so the copy for the GUI to paint from is only
+					// made when something is about to be repainted. Only the parts of the GUI showing what
+					// changed are repainted, and nothing at all while the game is paused and the player isn't
+					// doing anything.
+					renderFrame = instance.copy();
+					gui.repaintChanges(unshownChanges);
+					unshownChanges = EnumSet.noneOf(GameInstance.Change.class);
+					lastFrameTime = now;
+				}
+				if (isGameOver) {
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							gui.onGameOver();
+						}
+					});
 				}
 
-				gui.repaint();
+				// sleep until the next tick is due, or the next frame if there's something waiting to be shown;
+				// while paused there are no ticks, so with nothing to show it sleeps until woken (see wake):
+				wasPaused = isPaused;
+				long sleepNanos = wasPaused ? Long.MAX_VALUE : tickNanos - accumulator;
+				if (!unshownChanges.isEmpty()) {
+					sleepNanos = Math.min(sleepNanos, getNextFrameTime(lastFrameTime) - System.nanoTime());
+				}
+				// (parking rather than waiting on a monitor, so waking the engine never has to wait for a tick to finish,
+				// and a wake that comes before the engine gets here isn't lost)
+				if (sleepNanos == Long.MAX_VALUE) {
+					LockSupport.park(this);
+				}
+				else if (sleepNanos > 0) {
+					LockSupport.parkNanos(this, sleepNanos);
+				}
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
 			}
 		}
 		catch(InterruptedException e) {
@@ -57,16 +135,244 @@ public class GameEngine implements Runnable {
 
 	// =====================================
 
+	private long getNextFrameTime(long lastFrameTime) {
+		// the clock and progress bars move slowly, so when they're all that has changed there's no need to
+		// repaint (or copy the game) at the full frame rate
+		boolean isClockOnly = unshownChanges.size() == 1 && unshownChanges.contains(GameInstance.Change.CLOCK);
+		return lastFrameTime + (isClockOnly ? CLOCK_FRAME_INTERVAL : FRAME_INTERVAL) * 1000000L;
+	}
+
+	// =====================================
+
+	private boolean tick() {
+		// advances the game by one fixed step; returns true if the game ended
+		boolean isGameOver = false;
+		try {
+			if (!isPaused) {
+				if (replay != null) {
+					replayTick();
+				}
+				// where the magic happens (this also applies the player's queued commands):
+				instance.update(instance.getProgressForTime(TICK_LENGTH));
+			}
+			else {
+				// the player can still act while paused:
+				instance.processCommands();
+			}
+		}
+		catch (GameOverException e) {
+			isPaused = true;
+			isGameOver = true;
+			if (replay != null) {
+				finishReplay();
+			}
+			stopRecording();
+		}
+
+		// snapshots are only taken here, between updates, so they never capture a half-finished tick:
+		if (autosaveInterval > 0 && instance.getDayCount() >= lastAutosaveDay + autosaveInterval) {
+			lastAutosaveDay = instance.getDayCount();
+			saveSnapshot(AUTOSAVE_FILENAME);
+		}
+		String filename = requestedSave;
+		if (filename != null) {
+			requestedSave = null;
+			saveSnapshot(filename);
+		}
+		int rewindTicks = requestedRewind;
+		if (rewindTicks > 0) {
+			requestedRewind = 0;
+			rewind(rewindTicks);
+		}
+		metrics.reportIfDue();
+		return isGameOver;
+	}
+
+	// =====================================
+
+	private void replayTick() {
+		try {
+			replay.replayTick(instance);
+			if (!replay.hasNext()) {
+				// the player can carry on from here
+				System.out.println("Replay reached the end of the log" + describeReplay());
+				closeReplay();
+				isPaused = true;
+				unshownChanges.addAll(EnumSet.allOf(GameInstance.Change.class)); // the paused screen looks different
+			}
+		}
+		catch (IOException e) {
+			System.err.println("ERROR: could not read the rest of the replay, so the game carries on without it: " + e);
+			closeReplay();
+		}
+	}
+
+	// =====================================
+
+	private void finishReplay() {
+		try {
+			replay.replayGameOver(instance);
+			System.out.println("Replay ended with the game" + describeReplay());
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		closeReplay();
+	}
+
+	// =====================================
+
+	private void closeReplay() {
+		try {
+			replay.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		replay = null;
+	}
+
+	// =====================================
+
+	private String describeReplay() {
+		if (replay.getMismatchTick() < 0) {
+			return "; it matched the original (" + replay.getCheckpointCount() + " state hashes checked)";
+		}
+		return "; it went out of step with the original at tick " + replay.getMismatchTick();
+	}
+
+	// =====================================
+
+	private void rewind(int ticks) {
+		// the game is swapped for the one restored from its history, and left paused so the player can look at it
+		if (history == null || history.hasFailed() || replay != null) {
+			return;
+		}
+		long tick = Math.max(instance.getTickCount() - ticks, history.getEarliestTick());
+		// the command log can only record a game that moves forwards, so a new one is started from the restored game:
+		File logFile = commandLogFile;
+		stopRecording();
+		GameInstance restored = history.rewind(tick);
+		restored.setMetrics(metrics);
+		instance = restored;
+		lastAutosaveDay = instance.getDayCount();
+		isPaused = true;
+		if (logFile != null) {
+			try {
+				startRecording(logFile, false);
+			}
+			catch (IOException e) {
+				// the game can still be played, just not replayed
+				e.printStackTrace();
+			}
+		}
+	}
+
+	// =====================================
+
+	private void saveSnapshot(String filename) {
+		// encoding the game into memory is quick; the slow disk write is left to the saver's thread
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			SaveGameWriter.write(instance, out);
+			saver.submit(new File(filename), out.toByteArray());
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// =====================================
+
+	public void requestSave(String filename) {
+		// can be called from any thread
+		requestedSave = filename;
+		wake();
+	}
+
+	public void requestRewind(int ticks) {
+		// can be called from any thread; repeated requests before the next tick go back further
+		requestedRewind += ticks;
+		wake();
+	}
+
+	// =====================================
+
+	public void submitCommand(PlayerCommand c) {
+		// (goes through the engine, since rewinding replaces the game)
+		instance.submitCommand(c);
+		wake();
+	}
+
+	private void wake() {
+		// a paused engine sleeps until there's something for it to do
+		Thread t = engineThread;
+		if (t != null) {
+			LockSupport.unpark(t);
+		}
+	}
+
+	// =====================================
+
+	public void startRecording(File file, boolean isNewGame) throws IOException {
+		// every command from here on is written to the log, so the game can be replayed (see ReplayEngine)
+		instance.setCommandLog(new CommandLogWriter(new FileOutputStream(file), instance, TICK_LENGTH, isNewGame));
+		commandLogFile = file;
+	}
+
+	public void startHistory(long memoryCap) {
+		// keeps the game's recent past, up to memoryCap bytes of it, so it can be rewound (see GameHistory)
+		history = new GameHistory(instance, TICK_LENGTH, memoryCap);
+		instance.setHistory(history);
+	}
+
+	// =====================================
+
+	public void stopRecording() {
+		commandLogFile = null;
+		CommandLogWriter log = instance.getCommandLog();
+		if (log != null) {
+			instance.setCommandLog(null);
+			try {
+				log.close();
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	// =====================================
+
+	public void replay(CommandLogReader log) {
+		// plays the log's commands instead of the player's; it has to start from the game the log creates
+		if (log.getTickLength() != TICK_LENGTH) {
+			throw new IllegalArgumentException("Command log was recorded with a different tick length (" + log.getTickLength() + "ms)");
+		}
+		replay = log;
+	}
+
+	public boolean isReplaying() {
+		return replay != null;
+	}
+
+	// =====================================
+
 	public void pause() {
 		isPaused = true;
 	}
 
 	public void resume() {
 		isPaused = false;
+		wake();
 	}
 
 	// =====================================
 
+	public GameInstance getRenderFrame() {
+		return renderFrame;
+	}
+
 	public boolean isPaused() {
 		return isPaused;
 	}
@@ -0,0 +1,131 @@
+// Runs a game instance without a GUI, as fast as the CPU allows. Used for soak-testing balance changes.
+
+import core.*;
+import java.util.ArrayList;
+
+
+public class HeadlessEngine implements Runnable {
+
+	private static final int DEFAULT_TICK_LENGTH = 50; // in ms of game time
+	private GameInstance instance;
+	private ScriptedStrategy strategy; // plays the game, or null to leave it alone
+	private int tickLength; // how much game time passes per update, in ms
+	private int maxDays; // stop after this many days have been played (0 means no limit)
+	private long wallClockBudget; // in ms of real time (0 means no limit)
+	private long tickCount;
+	private long elapsedTime; // real time the run took, in ms
+	private StopReason stopReason;
+	private double peakDangerLevel;
+	private ArrayList<Integer> goldByDay; // the monarch's gold as each day began, from the first day played
+
+
+	public enum StopReason {
+		DAY_LIMIT,
+		TIME_BUDGET,
+		GAME_OVER
+	}
+
+
+	public static void main(String[] args) {
+		// usage: java HeadlessEngine [maxDays] [tickLength] [wallClockBudgetSeconds] [seed]
+		// (metrics are reported as in the full game when -Dmonarch.metricsInterval is set; see GameMetrics)
+		int days = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+		int tick = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TICK_LENGTH;
+		long budget = args.length > 2 ? Long.parseLong(args[2]) * 1000 : 0;
+		GameInstance game = args.length > 3 ? new GameInstance(Long.parseLong(args[3])) : new GameInstance();
+
+		game.setMetrics(GameMetrics.fromSystemProperties());
+		HeadlessEngine engine = new HeadlessEngine(game, tick, days, budget);
+		engine.run();
+		game.getMetrics().report(); // whatever has built up since the last interval
+		System.out.println(engine.getSummary());
+	}
+
+	public HeadlessEngine(GameInstance i, int tick, int days, long budget) {
+		instance = i;
+		tickLength = tick;
+		maxDays = days;
+		wallClockBudget = budget;
+		goldByDay = new ArrayList<Integer>();
+	}
+
+	// =====================================
+
+	public void run() {
+		long startTime = System.nanoTime();
+		int lastDay = -1;
+		try {
+			while (true) {
+				if (instance.getDayCount() != lastDay && instance.isDaytime()) {
+					lastDay = instance.getDayCount();
+					goldByDay.add(instance.getMonarchGold());
+				}
+				peakDangerLevel = Math.max(peakDangerLevel, instance.getDangerLevel());
+				if (maxDays > 0 && instance.getDayCount() > maxDays) {
+					stopReason = StopReason.DAY_LIMIT;
+					break;
+				}
+				if (wallClockBudget > 0 && (System.nanoTime() - startTime) / 1000000 >= wallClockBudget) {
+					stopReason = StopReason.TIME_BUDGET;
+					break;
+				}
+
+				if (strategy != null) {
+					strategy.onTick(instance);
+				}
+				instance.update(instance.getProgressForTime(tickLength));
+				tickCount++;
+				instance.getMetrics().reportIfDue();
+			}
+		}
+		catch (GameOverException e) {
+			stopReason = StopReason.GAME_OVER;
+		}
+		peakDangerLevel = Math.max(peakDangerLevel, instance.getDangerLevel());
+		elapsedTime = (System.nanoTime() - startTime) / 1000000;
+	}
+
+	// =====================================
+
+	public String getSummary() {
+		String result = stopReason.toString();
+		if (stopReason == StopReason.GAME_OVER) {
+			result += instance.getGameResult() ? " (victory)" : " (defeat)";
+		}
+		return "Seed " + instance.getSeed() + " stopped on day " + instance.getDayCount() + ": " + result
+			+ "; " + tickCount + " ticks in " + elapsedTime + "ms"
+			+ ", danger level " + (int)instance.getDangerLevel();
+	}
+
+	// ========== ACCESSORS =============
+
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	public ArrayList<Integer> getGoldByDay() {
+		return goldByDay;
+	}
+
+	public GameInstance getInstance() {
+		return instance;
+	}
+
+	public double getPeakDangerLevel() {
+		return peakDangerLevel;
+	}
+
+	public StopReason getStopReason() {
+		return stopReason;
+	}
+
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	public void setStrategy(ScriptedStrategy s) {
+		strategy = s;
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+// Doesn't do anything, so a run shows how long the starting kingdom holds out on its own. The default for BatchRunner.
+
+import core.*;
+
+
+public class IdleStrategy implements ScriptedStrategy {
+
+
+	public void onTick(GameInstance game) {
+		// do nothing
+	}
+
+
+}
\ No newline at end of file
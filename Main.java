@@ -9,27 +9,43 @@ import java.io.*;
 public class Main implements GUICallbackManager {
 
 	private static final String SAVE_GAME_FILENAME = "saved_game.dat";
+	static final String COMMAND_LOG_FILENAME = "last_game.mlog"; // can be changed with -Dmonarch.commandLog (empty turns recording off)
+	private static final int DEFAULT_HISTORY_SIZE = 64; // in MB; can be changed with -Dmonarch.historyMB (0 turns rewinding off)
+	private static final int REWIND_STEP = 100; // ticks gone back each time the player rewinds
+	private static final int DEFAULT_AUTOSAVE_INTERVAL = 1; // in days; can be changed with -Dmonarch.autosaveDays (0 turns it off)
 	private GUI gui;
 	private GameInstance currentGame;
 	private GameEngine engine;
+	private AutoSaver saver;
+	private GameMetrics metrics; // shared by every game played this session, so reports carry on across them
 
 
 	public static void main(String[] args) {
-		new Main();
+		// usage: java Main [-replay logFile]
+		Main main = new Main();
+		if (args.length >= 2 && args[0].equals("-replay")) {
+			main.replayGame(args[1]);
+		}
 	}
 
 	private Main() {
+		saver = new AutoSaver();
+		saver.start();
+		metrics = GameMetrics.fromSystemProperties();
 		gui = new GUI(this);
 	}
 
 	// ===============================================
 
 	public void newGame() {
+		stopRecording();
 		currentGame = new GameInstance();
+		engine = createEngine();
+		startRecording(true);
+		startHistory();
 		gui.onNewGameStart();
 		
 		// Start the game engine:
-		engine = new GameEngine(currentGame, gui);
 		(new Thread(engine)).start();
 	}
 
@@ -37,13 +53,16 @@ public class Main implements GUICallbackManager {
 
 	public void loadGame() {
 		try {
-    		ObjectInputStream in = new ObjectInputStream(new DataInputStream(new FileInputStream(new File(SAVE_GAME_FILENAME))));
-    		currentGame = (GameInstance)in.readObject();
+    		InputStream in = new FileInputStream(new File(SAVE_GAME_FILENAME));
+    		currentGame = SaveGameReader.read(in);
     		in.close();
 
+			stopRecording();
+			engine = createEngine();
+			startRecording(false);
+			startHistory();
     		gui.onNewGameStart();
     		// Start the game engine:
-			engine = new GameEngine(currentGame, gui);
 			(new Thread(engine)).start();
     	}
     	catch(Exception e) {
@@ -54,22 +73,90 @@ public class Main implements GUICallbackManager {
 
 	// ===============================================
 
-	public GameInstance getCurrentGame() {
-		return currentGame;
+	private void replayGame(String filename) {
+		// the recorded game plays in the window as it originally did; the player can only pause and watch
+		try {
+			CommandLogReader log = new CommandLogReader(new FileInputStream(new File(filename)));
+			currentGame = log.createGame();
+			engine = new GameEngine(currentGame, gui, saver, 0, metrics);
+			engine.replay(log);
+			gui.onNewGameStart();
+			(new Thread(engine)).start();
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			System.err.println("There was an error while loading the replay.");
+		}
 	}
 
 	// ===============================================
 
-	public void saveGame() {
+	private void startRecording(boolean isNewGame) {
+		String filename = System.getProperty("monarch.commandLog", COMMAND_LOG_FILENAME);
+		if (filename.isEmpty()) {
+			return;
+		}
 		try {
-    		ObjectOutputStream out = new ObjectOutputStream(new DataOutputStream(new FileOutputStream(SAVE_GAME_FILENAME)));
-    		out.writeObject(currentGame);
-    		out.close();
-    		System.out.println("Save successful.");
-    	}
-    	catch (Exception e) {
-    		e.printStackTrace();
-    	}
+			engine.startRecording(new File(filename), isNewGame);
+		}
+		catch(IOException e) {
+			// the game can still be played, just not replayed
+			e.printStackTrace();
+			System.err.println("There was an error while starting the command log.");
+		}
+	}
+
+	private void startHistory() {
+		int size = Integer.getInteger("monarch.historyMB", DEFAULT_HISTORY_SIZE);
+		if (size > 0) {
+			engine.startHistory(size * 1024L * 1024L);
+		}
+	}
+
+	private void stopRecording() {
+		if (engine != null) {
+			engine.stopRecording();
+		}
+	}
+
+	// ===============================================
+
+	public GameInstance getRenderFrame() {
+		return engine.getRenderFrame();
+	}
+
+	// ===============================================
+
+	public GameMetrics getMetrics() {
+		return metrics;
+	}
+
+	// ===============================================
+
+	public void submitCommand(PlayerCommand c) {
+		if (engine.isReplaying()) {
+			return; // the replay's commands come from the log
+		}
+		engine.submitCommand(c);
+	}
+
+	// ===============================================
+
+	public void saveGame() {
+		// the engine takes a snapshot between ticks and the file is written in the background
+		engine.requestSave(SAVE_GAME_FILENAME);
+	}
+
+	// ===============================================
+
+	public void rewind() {
+		engine.requestRewind(REWIND_STEP);
+	}
+
+	// ===============================================
+
+	private GameEngine createEngine() {
+		return new GameEngine(currentGame, gui, saver, Integer.getInteger("monarch.autosaveDays", DEFAULT_AUTOSAVE_INTERVAL), metrics);
 	}
 
 	// ===============================================
@@ -93,7 +180,7 @@ public class Main implements GUICallbackManager {
 	// ===============================================
 
 	public boolean didPlayerWin() {
-		return currentGame.getGameResult();
+		return engine.getRenderFrame().getGameResult();
 	}
 
 
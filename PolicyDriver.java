@@ -0,0 +1,74 @@
+// Lets a Policy play a headless game: it works out when a decision point has been reached and submits whatever the
+// policy decides. Used by BatchRunner for policy classes, and can be given to a HeadlessEngine directly.
+
+import core.*;
+import java.util.List;
+
+
+public class PolicyDriver implements ScriptedStrategy {
+
+	private static final int WAITING_INTERVAL = 20; // ticks between decisions while the monarch waits at a node
+	private Policy policy;
+	private boolean hasStarted;
+	private boolean wasDaytime;
+	private MapNode lastNode; // where the monarch was last tick (null while moving)
+	private int ticksSinceDecision;
+	private long decisionCount;
+
+
+	public PolicyDriver(Policy p) {
+		policy = p;
+	}
+
+	// =====================================
+
+	public void onTick(GameInstance game) {
+		Policy.DecisionPoint point = findDecisionPoint(game);
+		if (point == null) {
+			return;
+		}
+		ticksSinceDecision = 0;
+		decisionCount++;
+		// the policy is shown a copy, so the objects it can reach (settlements, populations...) aren't the live game's
+		// and commands stay the only way it can change anything:
+		List<PlayerCommand> commands = policy.decide(game.copy(), point);
+		for (PlayerCommand c: commands) {
+			game.submitCommand(c);
+		}
+	}
+
+	// =====================================
+
+	private Policy.DecisionPoint findDecisionPoint(GameInstance game) {
+		MapNode node = game.getMonarchNodeLocation();
+		Policy.DecisionPoint point = null;
+		if (!hasStarted) {
+			point = Policy.DecisionPoint.GAME_STARTED;
+		}
+		else if (game.isDaytime() != wasDaytime) {
+			point = game.isDaytime() ? Policy.DecisionPoint.DAY_BEGAN : Policy.DecisionPoint.NIGHT_BEGAN;
+		}
+		else if (node != null && node != lastNode) {
+			point = Policy.DecisionPoint.ARRIVED;
+		}
+		else if (node != null && ++ticksSinceDecision >= WAITING_INTERVAL) {
+			point = Policy.DecisionPoint.WAITING;
+		}
+		hasStarted = true;
+		wasDaytime = game.isDaytime();
+		lastNode = node;
+		return point;
+	}
+
+	// ========== ACCESSORS =============
+
+	public long getDecisionCount() {
+		return decisionCount;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+// Plays a recorded game again from its command log (see CommandLogWriter) as fast as the CPU allows, and checks that
+// it stays exactly in step with the original. Use Main -replay to watch one in the game window instead.
+
+import core.*;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+
+public class ReplayEngine implements Runnable {
+
+	private CommandLogReader log;
+	private GameInstance instance;
+	private boolean isGameOver;
+	private long elapsedTime; // real time the replay took, in ms
+
+
+	public static void main(String[] args) throws IOException {
+		// usage: java ReplayEngine logFile
+		CommandLogReader log = new CommandLogReader(new FileInputStream(args.length > 0 ? args[0] : Main.COMMAND_LOG_FILENAME));
+		ReplayEngine engine = new ReplayEngine(log, log.createGame());
+		engine.run();
+		log.close();
+		System.out.println(engine.getSummary());
+		if (log.getMismatchTick() >= 0) {
+			System.exit(1);
+		}
+	}
+
+	public ReplayEngine(CommandLogReader l, GameInstance i) {
+		log = l;
+		instance = i;
+	}
+
+	// =====================================
+
+	public void run() {
+		long startTime = System.nanoTime();
+		try {
+			while (log.hasNext()) {
+				log.replayTick(instance);
+				if (!log.hasNext()) {
+					break; // the recording stopped here
+				}
+				instance.update(instance.getProgressForTime(log.getTickLength()));
+			}
+		}
+		catch (GameOverException e) {
+			isGameOver = true;
+			try {
+				log.replayGameOver(instance);
+			}
+			catch (IOException ioe) {
+				throw new RuntimeException("Could not read command log", ioe);
+			}
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Could not read command log", e);
+		}
+		elapsedTime = (System.nanoTime() - startTime) / 1000000;
+	}
+
+	// =====================================
+
+	public String getSummary() {
+		String result = log.getMismatchTick() < 0 ? "matched the original" : "went out of step at tick " + log.getMismatchTick();
+		return "Replay of seed " + log.getSeed() + " " + result + " (" + log.getCheckpointCount() + " state hashes checked)"
+			+ "; stopped on day " + instance.getDayCount() + (isGameOver ? " (game over)" : "")
+			+ " after " + instance.getTickCount() + " ticks in " + elapsedTime + "ms";
+	}
+
+	// ========== ACCESSORS =============
+
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	public GameInstance getInstance() {
+		return instance;
+	}
+
+	public boolean isGameOver() {
+		return isGameOver;
+	}
+
+
+}
\ No newline at end of file
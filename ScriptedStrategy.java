@@ -0,0 +1,14 @@
+// Plays a game in place of the player when it's run headless (see HeadlessEngine and BatchRunner).
+
+import core.*;
+
+
+public interface ScriptedStrategy {
+
+
+	// Called before every update of the game. Anything it does should go through game.submitCommand, the way the
+	// GUI's actions do, and it mustn't keep state that other games can see, since batches are played in parallel.
+	public void onTick(GameInstance game);
+
+
+}
\ No newline at end of file
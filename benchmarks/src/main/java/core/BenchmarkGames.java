@@ -0,0 +1,75 @@
+// Builds the games the benchmarks run on: a map of a given size with the half nearest the capital captured and
+// developed, roughly how a game looks a couple of weeks in. Everything comes from one seed, so every run measures the same game.
+
+package core;
+import java.util.LinkedList;
+
+
+public class BenchmarkGames {
+
+	public static final long SEED = 20201008L;
+	public static final int TICK_LENGTH = 50; // ms of game time per update, as GameEngine uses
+	private static final int LANE_DEPTH_RANGE = 7; // MapGen's default lanes are 8 to 15 deep
+
+
+
+	public static Map createMap(int maxLaneDepth) {
+		return MapGen.createMap(SEED, maxLaneDepth - LANE_DEPTH_RANGE, maxLaneDepth);
+	}
+
+	// ========================================
+
+	public static GameInstance createMidGame(int maxLaneDepth) {
+		GameInstance game = new GameInstance(SEED, createMap(maxLaneDepth));
+		GameState state = game.getState();
+		MapNode root = game.getMap().getRootNode();
+
+		// capture outwards from the capital until half the map is taken:
+		int captureTarget = game.getMap().getNodeCount() / 2;
+		int captured = 1;
+		LinkedList<MapNode> queue = new LinkedList<MapNode>();
+		queue.addAll(root.getChildren());
+		while (queue.size() > 0 && captured < captureTarget) {
+			MapNode node = queue.removeFirst();
+			if (state.getStrongholdAt(node) != null) {
+				continue;
+			}
+			state.exploreNode(node);
+			state.captureNode(node, true);
+			captured++;
+			queue.addAll(node.getChildren());
+		}
+
+		// settle it, with enough soldiers on the frontiers that nights don't end the game:
+		state.addMonarchGold(1000000);
+		int n = 0;
+		for (MapNode node: game.getMap().getNodeList()) {
+			if (node == root || !state.isNodeCaptured(node)) {
+				continue;
+			}
+			if (game.isNodeArable(node)) {
+				game.attemptBuildNewFarm(node);
+			}
+			else if (n++ % 3 == 0) {
+				game.attemptBuildNewCity(node);
+			}
+			state.addSubjectsToNodePopulation(node, SubjectType.WORKER, 2, game);
+			state.addSubjectsToNodePopulation(node, SubjectType.FARMER, 2, game);
+			if (state.isFrontier(node)) {
+				state.addSubjectsToNodePopulation(node, SubjectType.SOLDIER, 30, game);
+			}
+		}
+		return game;
+	}
+
+	// ========================================
+
+	public static void playUntil(GameInstance game, boolean daytime) {
+		// runs the game until it's day (or night)
+		while (game.isDaytime() != daytime) {
+			game.update(game.getProgressForTime(TICK_LENGTH));
+		}
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+// Times the queries the game and GUI make over and over about the state of the kingdom
+
+package core;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameStateQueryBenchmark {
+
+	@Param({"15", "40", "100"})
+	public int maxLaneDepth;
+	private GameInstance game;
+	private MapNode[] nodes;
+	private int nextNode; // isTooCloseToCity cycles through every node so no one answer gets measured
+
+
+
+	@Setup(Level.Trial)
+	public void createGame() {
+		game = BenchmarkGames.createMidGame(maxLaneDepth);
+		nodes = game.getMap().getNodeList().toArray(new MapNode[0]);
+	}
+
+	// ========================================
+
+	@Benchmark
+	public LinkedList<MapNode> getFrontiers() {
+		return game.getState().getFrontiers();
+	}
+
+	@Benchmark
+	public int getTotalHousingCapacity() {
+		return game.getTotalHousingCapacity();
+	}
+
+	@Benchmark
+	public boolean isTooCloseToCity() {
+		MapNode node = nodes[nextNode];
+		nextNode = (nextNode + 1) % nodes.length;
+		return game.isTooCloseToCity(node);
+	}
+
+
+}
\ No newline at end of file
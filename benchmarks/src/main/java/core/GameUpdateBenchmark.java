@@ -0,0 +1,88 @@
+// Times GameInstance.update through part of a day and part of a night in a developed game
+
+package core;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameUpdateBenchmark {
+
+	private static final int TICKS_PER_INVOCATION = 200; // 10 seconds of game time, a tenth of a day
+
+
+
+	@Benchmark
+	public GameInstance day(Day snapshot) {
+		return play(snapshot.game);
+	}
+
+	@Benchmark
+	public GameInstance night(Night snapshot) {
+		return play(snapshot.game);
+	}
+
+	private static GameInstance play(GameInstance game) {
+		for (int i = 0; i < TICKS_PER_INVOCATION; i++) {
+			game.update(game.getProgressForTime(BenchmarkGames.TICK_LENGTH));
+		}
+		return game;
+	}
+
+
+	// ========================================
+
+	@State(Scope.Thread)
+	public static abstract class Snapshot {
+
+		@Param({"15", "40", "100"})
+		public int maxLaneDepth;
+		private GameInstance snapshot;
+		GameInstance game; // a fresh copy of the snapshot for every invocation
+
+
+		protected abstract boolean isDaytime();
+
+		@Setup(Level.Trial)
+		public void createSnapshot() {
+			snapshot = BenchmarkGames.createMidGame(maxLaneDepth);
+			// play through the first day and night so there is construction and growth underway:
+			BenchmarkGames.playUntil(snapshot, false);
+			BenchmarkGames.playUntil(snapshot, true);
+			if (!isDaytime()) {
+				BenchmarkGames.playUntil(snapshot, false);
+			}
+		}
+
+		@Setup(Level.Invocation)
+		public void copySnapshot() {
+			game = snapshot.copy();
+		}
+
+	}
+
+	@State(Scope.Thread)
+	public static class Day extends Snapshot {
+		protected boolean isDaytime() {
+			return true;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Night extends Snapshot {
+		protected boolean isDaytime() {
+			return false;
+		}
+	}
+
+
+}
\ No newline at end of file
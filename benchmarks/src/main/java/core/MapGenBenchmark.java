@@ -0,0 +1,30 @@
+// Times generating maps of a few sizes (83, 1731 and 14526 nodes)
+
+package core;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapGenBenchmark {
+
+	@Param({"15", "40", "100"})
+	public int maxLaneDepth;
+
+
+
+	@Benchmark
+	public Map createMap() {
+		return BenchmarkGames.createMap(maxLaneDepth);
+	}
+
+
+}
\ No newline at end of file
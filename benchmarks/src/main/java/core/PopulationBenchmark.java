@@ -0,0 +1,47 @@
+// Times merging populations, which kingdom totals and special retinues do
+
+package core;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PopulationBenchmark {
+
+	private Population source;
+	private Population target;
+
+
+
+	@Setup(Level.Trial)
+	public void createSource() {
+		source = new Population();
+		for (SubjectType st: SubjectType.values()) {
+			source.addSubjects(st, st.ordinal() + 1);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void createTarget() {
+		target = new Population();
+	}
+
+	// ========================================
+
+	@Benchmark
+	public Population addAll() {
+		target.addAll(source);
+		return target;
+	}
+
+
+}
\ No newline at end of file
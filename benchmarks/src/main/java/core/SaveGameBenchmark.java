@@ -0,0 +1,63 @@
+// Times writing and reading saved games, which autosaves and render frames also go through
+
+package core;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SaveGameBenchmark {
+
+	@Param({"15", "40", "100"})
+	public int maxLaneDepth;
+	private GameInstance game;
+	private byte[] savedGame;
+
+
+
+	@Setup(Level.Trial)
+	public void createGame() throws IOException {
+		game = BenchmarkGames.createMidGame(maxLaneDepth);
+		savedGame = save();
+	}
+
+	// ========================================
+
+	@Benchmark
+	public byte[] save() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SaveGameWriter.write(game, bytes);
+		return bytes.toByteArray();
+	}
+
+	@Benchmark
+	public GameInstance load() throws IOException {
+		return SaveGameReader.read(new ByteArrayInputStream(savedGame));
+	}
+
+	@Benchmark
+	public GameInstance roundTrip() throws IOException {
+		return SaveGameReader.read(new ByteArrayInputStream(save()));
+	}
+
+	@Benchmark
+	public GameInstance copy() {
+		// the in-memory round trip the engine makes for every render frame
+		return game.copy();
+	}
+
+
+}
\ No newline at end of file
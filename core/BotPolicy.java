@@ -0,0 +1,56 @@
+// Moves the reference bots (GreedyExpander and TurtleDefender) have in common.
+
+package core;
+import java.awt.geom.Point2D.Double;
+import java.util.List;
+
+
+public abstract class BotPolicy implements Policy {
+
+
+	protected int withdrawGold(GameView game, List<PlayerCommand> commands) {
+		// Fills the purse from the treasury wherever the monarch is (if there is one), and returns how much gold the
+		// monarch will have once it's done.
+		MapNode node = game.getMonarchNodeLocation();
+		Settlement settlement = node == null ? null : game.getSettlementAt(node);
+		int gold = game.getMonarchGold();
+		if (settlement == null || settlement.getGold() == 0 || gold >= game.getMonarchMaxGold()) {
+			return gold;
+		}
+		int n = Math.min(settlement.getGold(), game.getMonarchMaxGold() - gold);
+		commands.add(new PlayerCommand(PlayerCommand.Type.WITHDRAW_GOLD, n));
+		return gold + n;
+	}
+
+	// =================================
+
+	protected boolean moveTowards(GameView game, MapNode target, List<PlayerCommand> commands) {
+		// Sets off along the first edge on the way to the target; returns false if the monarch is already there
+		// (or isn't at a node to set off from).
+		MapNode node = game.getMonarchNodeLocation();
+		if (node == null || target == null || node == target) {
+			return false;
+		}
+		Double direction = Map.findDirectionTowards(node, Map.findNextStepTowards(node, target));
+		if (direction == null) {
+			return false;
+		}
+		commands.add(new PlayerCommand(PlayerCommand.Type.START_MOVING, direction));
+		return true;
+	}
+
+	// =================================
+
+	protected MapNode findWeakestFrontier(GameView game) {
+		// the frontier whose defense is lowest, which is where an attack is most likely to break through
+		MapNode weakest = null;
+		for (MapNode node: game.getMap().getNodeList()) {
+			if (game.isFrontier(node) && (weakest == null || game.getDefenseRating(node) < game.getDefenseRating(weakest))) {
+				weakest = node;
+			}
+		}
+		return weakest;
+	}
+
+
+}
\ No newline at end of file
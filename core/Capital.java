@@ -1,6 +1,9 @@
 // The capital city / palace settlement
 
 package core;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
 
@@ -11,6 +14,7 @@ public class Capital extends Settlement implements Serializable {
 	private static int[] treasurySizes = new int[]{50, 75, 125, 200, 500}; // how much gold the capital can hold
 	private static int[] housingCapacities = new int[]{6, 8, 14, 20, 30};
 	private double nextSubjectProgress; // how close it is to producing another subject
+	private double growthRate; // latched, in subjects per day
 
 
 	public Capital(int startingLevel) {
@@ -19,14 +23,25 @@ public class Capital extends Settlement implements Serializable {
 
 	// ====================================
 
-	protected void update(GameInstance instance, double progress) {
-		nextSubjectProgress += progress * City.getNewPopPerDay(level) * instance.getPopGrowthModifier().getGrowthMod();
-		if (nextSubjectProgress >= 1.0) {
+	protected void advanceProduction(double elapsed) {
+		nextSubjectProgress += elapsed * growthRate;
+	}
+
+	protected void fireProductionEvents(GameInstance instance) {
+		if (nextSubjectProgress >= 1.0 - EPSILON) {
 			nextSubjectProgress = 0.0;
 			instance.newSubjectAtSettlement(this);
 		}
 	}
 
+	protected void latchProductionRates(GameInstance instance) {
+		growthRate = City.getNewPopPerDay(level) * instance.getPopGrowthModifier().getGrowthMod();
+	}
+
+	protected double getTimeToNextProductionEvent() {
+		return EventScheduler.getTimeToThreshold(nextSubjectProgress, growthRate);
+	}
+
 	// ====================================
 
 	public boolean doesSellEquipment(SubjectType s) {
@@ -63,6 +78,16 @@ public class Capital extends Settlement implements Serializable {
 		// do nothing
 	}
 
+	// ====================================
+
+	protected void writeExtraState(DataOutput out) throws IOException {
+		out.writeDouble(nextSubjectProgress);
+	}
+
+	protected void readExtraState(DataInput in) throws IOException {
+		nextSubjectProgress = in.readDouble();
+	}
+
 	// ======== ACCESSORS ================
 
 	public boolean allowsGoldDeposits() {
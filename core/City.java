@@ -1,6 +1,9 @@
 // A ind of settlement that sells equips and generates new citizens
 
 package core;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
 
@@ -12,6 +15,7 @@ public class City extends Settlement implements Serializable {
 	private static int[] treasurySizes = new int[]{20, 50, 75, 120, 180};
 	private static int[] housingCapacities = new int[]{4, 8, 12, 16, 22};
 	private double nextSubjectProgress; // how close it is to producing another subject
+	private double growthRate; // latched, in subjects per day
 
 
 	public City() {
@@ -21,24 +25,35 @@ public class City extends Settlement implements Serializable {
 
 	// ====================================
 
-	protected void update(GameInstance instance, double progress) {
-		if (isBuildingSite) {
-			double newProgress = progress * instance.getTotalSubjectsAtSettlement(this, SubjectType.WORKER) / constructionTimes[0];
-			constructionProgress += newProgress;
-			if (constructionProgress >= 1.0) {
-				constructionProgress = 0.0;
-				isBuildingSite = false;
-			}
+	protected double getBuildingTime() {
+		return constructionTimes[0];
+	}
+
+	// ====================================
+
+	protected void advanceProduction(double elapsed) {
+		nextSubjectProgress += elapsed * growthRate;
+	}
+
+	protected void fireProductionEvents(GameInstance instance) {
+		if (nextSubjectProgress >= 1.0 - EPSILON) {
+			nextSubjectProgress = 0.0;
+			instance.newSubjectAtSettlement(this);
 		}
+	}
 
-		if (!isBuildingSite) {
-			// NOTE that this was copied from Capital
-			nextSubjectProgress += progress * City.getNewPopPerDay(level) * instance.getPopGrowthModifier().getGrowthMod();
-			if (nextSubjectProgress >= 1.0) {
-				nextSubjectProgress = 0.0;
-				instance.newSubjectAtSettlement(this);
-			}
+	protected void latchProductionRates(GameInstance instance) {
+		// NOTE that this was copied from Capital
+		if (isBuildingSite) {
+			growthRate = 0.0;
 		}
+		else {
+			growthRate = City.getNewPopPerDay(level) * instance.getPopGrowthModifier().getGrowthMod();
+		}
+	}
+
+	protected double getTimeToNextProductionEvent() {
+		return EventScheduler.getTimeToThreshold(nextSubjectProgress, growthRate);
 	}
 	
 	// ====================================
@@ -74,6 +89,16 @@ public class City extends Settlement implements Serializable {
 		// do nothing
 	}
 
+	// ====================================
+
+	protected void writeExtraState(DataOutput out) throws IOException {
+		out.writeDouble(nextSubjectProgress);
+	}
+
+	protected void readExtraState(DataInput in) throws IOException {
+		nextSubjectProgress = in.readDouble();
+	}
+
 
 	// ======= STATIC ACCESSORS ===========
 
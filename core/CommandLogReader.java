@@ -0,0 +1,168 @@
+// Plays the commands from a log written by CommandLogWriter back into a game, and checks the game's state against
+// the hashes recorded with them. Whatever plays the game calls replayTick before every update and replayGameOver if
+// an update ends the game; the game has to be updated with the log's tick length.
+
+package core;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+public class CommandLogReader {
+
+	private DataInputStream in;
+	private long seed;
+	private int tickLength; // in ms of game time
+	private byte[] snapshot; // the save the game started from, or null if it was a new game
+	private int nextType; // the record waiting to be replayed, -1 once there are none left
+	private long nextTick;
+	private PlayerCommand nextCommand;
+	private long nextHash;
+	private int checkpointCount; // how many state hashes have been checked
+	private long mismatchTick; // first tick the replay was found to be out of step on, -1 if it hasn't been
+
+
+	public CommandLogReader(InputStream is) throws IOException {
+		in = new DataInputStream(new BufferedInputStream(is));
+		if (in.readInt() != CommandLogWriter.MAGIC) {
+			throw new IOException("Not a command log");
+		}
+		int version = in.readShort();
+		if (version > CommandLogWriter.FORMAT_VERSION) {
+			throw new IOException("Command log is from a newer version (format " + version + ")");
+		}
+		seed = in.readLong();
+		tickLength = in.readInt();
+		nextTick = in.readLong(); // records count on from here
+		if (in.readBoolean()) {
+			snapshot = new byte[in.readInt()];
+			in.readFully(snapshot);
+		}
+		mismatchTick = -1;
+		readNext();
+	}
+
+	// ========================================
+
+	public GameInstance createGame() throws IOException {
+		// the game as it was when recording started
+		if (snapshot == null) {
+			return new GameInstance(seed);
+		}
+		return SaveGameReader.read(new ByteArrayInputStream(snapshot));
+	}
+
+	// ========================================
+
+	public void replayTick(GameInstance game) throws IOException {
+		// Submits the commands that were applied on the tick the game is about to play, and checks any state hash
+		// recorded since the last one.
+		while (nextType >= 0 && nextTick <= game.getTickCount()) {
+			if (nextTick < game.getTickCount()) {
+				// the original reached this record and the replay has gone past it without doing so:
+				onMismatch(nextTick);
+			}
+			else if (nextType == CommandLogWriter.COMMAND) {
+				game.submitCommand(nextCommand);
+			}
+			else if (nextType == CommandLogWriter.CHECKPOINT) {
+				checkHash(game);
+			}
+			else {
+				// the original ended during this tick; see replayGameOver
+				return;
+			}
+			readNext();
+		}
+	}
+
+	// ========================================
+
+	public void replayGameOver(GameInstance game) throws IOException {
+		// the replay has ended, which should be exactly where and how the original did
+		if (nextType == CommandLogWriter.GAME_OVER && nextTick == game.getTickCount()) {
+			checkHash(game);
+			readNext();
+		}
+		else {
+			onMismatch(game.getTickCount());
+		}
+	}
+
+	// ========================================
+
+	private void checkHash(GameInstance game) {
+		checkpointCount++;
+		if (game.getStateHash() != nextHash) {
+			onMismatch(nextTick);
+		}
+	}
+
+	// ========================================
+
+	private void onMismatch(long tick) {
+		if (mismatchTick < 0) {
+			mismatchTick = tick;
+		}
+	}
+
+	// ========================================
+
+	private void readNext() throws IOException {
+		// a log cut short (e.g. because the game was closed mid-write) just ends early
+		try {
+			nextType = in.readByte();
+			nextTick += SaveGameReader.readVarInt(in);
+			if (nextType == CommandLogWriter.COMMAND) {
+				nextCommand = PlayerCommand.read(in);
+			}
+			else if (nextType == CommandLogWriter.CHECKPOINT || nextType == CommandLogWriter.GAME_OVER) {
+				nextHash = in.readLong();
+			}
+			else {
+				throw new IOException("Unknown record type in command log: " + nextType);
+			}
+		}
+		catch (EOFException e) {
+			nextType = -1;
+		}
+	}
+
+	// ========================================
+
+	public void close() throws IOException {
+		in.close();
+	}
+
+	// ========== ACCESSORS =============
+
+	public int getCheckpointCount() {
+		return checkpointCount;
+	}
+
+	public long getMismatchTick() {
+		return mismatchTick;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getTickLength() {
+		return tickLength;
+	}
+
+	public boolean hasNext() {
+		return nextType >= 0;
+	}
+
+	public boolean isGameOverNext() {
+		// the original game ended on the next tick to be played
+		return nextType == CommandLogWriter.GAME_OVER;
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+// Records every command applied to a game, stamped with the tick it was applied on, so the game can be played again
+// exactly (see CommandLogReader). Given its seed and a fixed tick length the game always plays out the same way, so
+// the commands are all a replay needs; hashes of the game state are recorded along the way so a replay can tell
+// whether it has stayed in step.
+//
+// Format: a header (MAGIC, FORMAT_VERSION, seed, tick length, starting tick, then the save of the starting game
+// unless it's a new one), then records, each a type byte and the number of ticks since the previous record, followed
+// by a command (see PlayerCommand.write) or a state hash.
+
+package core;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+public class CommandLogWriter {
+
+	public static final int MAGIC = 0x4d4f4e4c; // "MONL"
+	public static final int FORMAT_VERSION = 1;
+	static final byte COMMAND = 0; // record types
+	static final byte CHECKPOINT = 1; // state hash at the start of a day
+	static final byte GAME_OVER = 2; // state hash as the game ended
+	private DataOutputStream out;
+	private long lastTick; // of the previous record
+	private boolean hasFailed; // recording stops after the first write error, rather than stopping the game
+
+
+	public CommandLogWriter(OutputStream os, GameInstance game, int tickLength, boolean isNewGame) throws IOException {
+		// The game should be about to be played. A new game is replayed from its seed; any other is saved into the
+		// header so the replay can start from where it did.
+		out = new DataOutputStream(new BufferedOutputStream(os));
+		out.writeInt(MAGIC);
+		out.writeShort(FORMAT_VERSION);
+		out.writeLong(game.getSeed());
+		out.writeInt(tickLength);
+		out.writeLong(game.getTickCount());
+		out.writeBoolean(!isNewGame);
+		if (!isNewGame) {
+			ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+			SaveGameWriter.write(game, snapshot);
+			out.writeInt(snapshot.size());
+			snapshot.writeTo(out);
+		}
+		out.flush();
+		lastTick = game.getTickCount();
+	}
+
+	// ========================================
+
+	void record(long tick, PlayerCommand command) {
+		// (flushed every time, since commands come at the player's pace and the log should survive the window being closed)
+		try {
+			writeRecordHeader(COMMAND, tick);
+			command.write(out);
+			out.flush();
+		}
+		catch (IOException e) {
+			onError(e);
+		}
+	}
+
+	// ========================================
+
+	void recordCheckpoint(long tick, long stateHash) {
+		try {
+			writeRecordHeader(CHECKPOINT, tick);
+			out.writeLong(stateHash);
+			out.flush();
+		}
+		catch (IOException e) {
+			onError(e);
+		}
+	}
+
+	// ========================================
+
+	void recordGameOver(long tick, long stateHash) {
+		try {
+			writeRecordHeader(GAME_OVER, tick);
+			out.writeLong(stateHash);
+			out.flush();
+		}
+		catch (IOException e) {
+			onError(e);
+		}
+	}
+
+	// ========================================
+
+	private void writeRecordHeader(byte type, long tick) throws IOException {
+		if (hasFailed) {
+			throw new IOException("Command log has already failed");
+		}
+		out.writeByte(type);
+		SaveGameWriter.writeVarInt(out, (int)(tick - lastTick));
+		lastTick = tick;
+	}
+
+	// ========================================
+
+	private void onError(IOException e) {
+		if (!hasFailed) {
+			hasFailed = true;
+			System.err.println("ERROR: could not write command log, so the rest of this game won't be recorded: " + e);
+		}
+	}
+
+	// ========================================
+
+	public void close() throws IOException {
+		out.close();
+	}
+
+	// ========== ACCESSORS =============
+
+	public boolean hasFailed() {
+		return hasFailed;
+	}
+
+
+}
\ No newline at end of file
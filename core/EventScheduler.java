@@ -0,0 +1,140 @@
+// Queue of scheduled objects ordered by the time of their next event, along with the clock they run on. Entries are never
+// taken out of the middle of the queue: rescheduling or removing an object just leaves its old entry stale, and stale
+// entries are skipped when they come up.
+
+package core;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.PriorityQueue;
+
+
+public class EventScheduler implements Serializable {
+
+	private PriorityQueue<Entry> queue;
+	private LinkedHashMap<Scheduled, Entry> entries; // latest entry for each object, in the order they were added
+	private double time; // as of whatever is being processed
+
+
+	public EventScheduler() {
+		queue = new PriorityQueue<Entry>();
+		entries = new LinkedHashMap<Scheduled, Entry>();
+	}
+
+	// ========================================
+
+	public static double getTimeToThreshold(double progress, double rate) {
+		// how long something progressing at this rate (per day) takes to reach 1.0
+		if (rate <= 0.0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return Math.max(0.0, (1.0 - progress) / rate);
+	}
+
+	// ========================================
+
+	public void add(Scheduled s, int key) {
+		// key breaks ties between objects with events at the same time, so they always fire in the same order
+		Entry e = new Entry(s, s.getNextEventTime(), key);
+		entries.put(s, e);
+		if (e.time != Double.POSITIVE_INFINITY) {
+			queue.add(e);
+		}
+	}
+
+	public void reschedule(Scheduled s) {
+		// call after the object's progress or rates have changed; does nothing if it isn't in the scheduler
+		Entry old = entries.get(s);
+		if (old != null) {
+			add(s, old.key);
+		}
+	}
+
+	public void remove(Scheduled s) {
+		entries.remove(s);
+	}
+
+	public void clear() {
+		queue.clear();
+		entries.clear();
+	}
+
+	// ========================================
+
+	public void touch(Scheduled s, GameInstance instance) {
+		// Called after something that one of the object's rates depends on has changed. Progress up to now is worked out
+		// at the old rates before the new ones are latched.
+		if (entries.containsKey(s)) {
+			s.advanceTo(time);
+			s.latchRates(instance);
+			add(s, entries.get(s).key);
+		}
+	}
+
+	public void advance(Scheduled s) {
+		// brings the object's progress up to now without re-latching
+		if (entries.containsKey(s)) {
+			s.advanceTo(time);
+		}
+	}
+
+	// ========================================
+
+	public double getNextEventTime() {
+		discardStaleEntries();
+		return queue.isEmpty() ? Double.POSITIVE_INFINITY : queue.peek().time;
+	}
+
+	public Scheduled pollNextEvent() {
+		// the object whose event is due next; it stays in the scheduler and should be rescheduled once it's been handled
+		discardStaleEntries();
+		return queue.isEmpty() ? null : queue.poll().target;
+	}
+
+	private void discardStaleEntries() {
+		while (!queue.isEmpty() && entries.get(queue.peek().target) != queue.peek()) {
+			queue.poll();
+		}
+	}
+
+	// ============ ACCESSORS ==============
+
+	public Collection<Scheduled> getAll() {
+		return entries.keySet();
+	}
+
+	public double getTime() {
+		return time;
+	}
+
+	public void setTime(double t) {
+		time = t;
+	}
+
+
+	// ========================================
+
+	private static class Entry implements Comparable<Entry>, Serializable {
+
+		private Scheduled target;
+		private double time;
+		private int key;
+
+
+		public Entry(Scheduled s, double t, int k) {
+			target = s;
+			time = t;
+			key = k;
+		}
+
+		public int compareTo(Entry other) {
+			if (time != other.time) {
+				return time < other.time ? -1 : 1;
+			}
+			return Integer.compare(key, other.key);
+		}
+
+	}
+
+
+}
\ No newline at end of file
@@ -1,6 +1,9 @@
 // A settlement that employs farmers and produces gold
 
 package core;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 
@@ -23,33 +26,50 @@ public class Farm extends Settlement implements Serializable {
 
 	// ========================================
 
-	protected void update(GameInstance instance, double progress) {
+	protected double getBuildingTime() {
+		return constructionTimes[0];
+	}
+
+	protected void onBuildingFinished(GameInstance instance) {
+		assignFarmersToFields(instance);
+	}
+
+	// ========================================
+
+	protected void advanceProduction(double elapsed) {
+		// crops grow at a fixed rate, so there's nothing to latch
 		if (isBuildingSite) {
-			double newProgress = progress * instance.getTotalSubjectsAtSettlement(this, SubjectType.WORKER) / constructionTimes[0];
-			constructionProgress += newProgress;
-			if (constructionProgress >= 1.0) {
-				constructionProgress = 0.0;
-				isBuildingSite = false;
-				assignFarmersToFields(instance);
-			}
+			return;
 		}
-		else {
-			// update crop progress:
-			double newProgress = progress / getHarvestTime();
-			for(int i = 0; i < cropProgress.size(); i++) {
-				if (cropProgress.get(i) != null) {
-					double newValue = cropProgress.get(i).doubleValue() + newProgress;
-					if (newValue >= 1.0) {
-						harvest(instance);
-						newValue = 0.0;
-					}
-					cropProgress.set(i, new Double(newValue));
+		double newProgress = elapsed / getHarvestTime();
+		for(int i = 0; i < cropProgress.size(); i++) {
+			cropProgress.set(i, new Double(cropProgress.get(i).doubleValue() + newProgress));
+		}
+	}
 
-				}
+	protected void fireProductionEvents(GameInstance instance) {
+		if (isBuildingSite) {
+			return;
+		}
+		for(int i = 0; i < cropProgress.size(); i++) {
+			if (cropProgress.get(i).doubleValue() >= 1.0 - EPSILON) {
+				harvest(instance);
+				cropProgress.set(i, new Double(0.0));
 			}
 		}
 	}
 
+	protected double getTimeToNextProductionEvent() {
+		if (isBuildingSite) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double t = Double.POSITIVE_INFINITY;
+		for (Double d: cropProgress) {
+			t = Math.min(t, EventScheduler.getTimeToThreshold(d.doubleValue(), 1.0 / getHarvestTime()));
+		}
+		return t;
+	}
+
 	// ========================================
 
 	private void harvest(GameInstance instance) {
@@ -119,6 +139,23 @@ public class Farm extends Settlement implements Serializable {
 		assignFarmersToFields(instance);
 	}
 
+	// ========================================
+
+	protected void writeExtraState(DataOutput out) throws IOException {
+		out.writeByte(cropProgress.size());
+		for (Double d: cropProgress) {
+			out.writeDouble(d.doubleValue());
+		}
+	}
+
+	protected void readExtraState(DataInput in) throws IOException {
+		cropProgress.clear();
+		int n = in.readByte();
+		for (int i = 0; i < n; i++) {
+			cropProgress.add(new Double(in.readDouble()));
+		}
+	}
+
 	// =========== ACCESSORS ===================
 
 	public boolean allowsGoldDeposits() {
@@ -0,0 +1,162 @@
+// Java Flight Recorder events for what happens in a game, so recordings can line GC pauses and CPU spikes up with ticks,
+// nightfall, lost nodes and so on. They cost next to nothing unless a recording has them turned on, which is done
+// with JFR settings rather than code: monarch.jfc (next to the sources) turns them all on, with thresholds suited to
+// leaving a recording running for a whole session, e.g.
+//   java -XX:StartFlightRecording=settings=default,settings=monarch.jfc,filename=monarch.jfr Main
+
+package core;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+public class FlightEvents {
+
+	private static final String CATEGORY = "Monarch";
+
+
+	private FlightEvents() {
+	}
+
+	// ========================================
+
+	@Name("monarch.Tick")
+	@Label("Tick")
+	@Description("One call to GameInstance.update")
+	@Category({CATEGORY, "Simulation"})
+	@StackTrace(false)
+	public static class TickEvent extends Event {
+		@Label("Day")
+		public int dayCount;
+		@Label("Daytime")
+		public boolean isDaytime;
+		@Label("Progress Through Day or Night")
+		public double dayNightTime;
+	}
+
+	// ========================================
+
+	@Name("monarch.DayNightTransition")
+	@Label("Day/Night Transition")
+	@Description("The work done when day or night begins")
+	@Category({CATEGORY, "Simulation"})
+	@StackTrace(false)
+	public static class DayNightTransitionEvent extends Event {
+		@Label("Day")
+		public int dayCount;
+		@Label("Daytime")
+		@Description("True when day is beginning, false when night is")
+		public boolean isDaytime;
+		@Label("Danger Level")
+		public double dangerLevel;
+		@Label("Attacks")
+		@Description("Attacks generated for the night that is beginning")
+		public int attackCount;
+	}
+
+	// ========================================
+
+	@Name("monarch.NodeCaptured")
+	@Label("Node Captured")
+	@Category({CATEGORY, "Kingdom"})
+	@StackTrace(false)
+	public static class NodeCapturedEvent extends Event {
+		@Label("Node")
+		public int nodeId;
+		@Label("Day")
+		public int dayCount;
+	}
+
+	// ========================================
+
+	@Name("monarch.NodeLost")
+	@Label("Node Lost")
+	@Category({CATEGORY, "Kingdom"})
+	@StackTrace(false)
+	public static class NodeLostEvent extends Event {
+		@Label("Node")
+		public int nodeId;
+		@Label("Day")
+		public int dayCount;
+		@Label("Cut Off")
+		@Description("Lost because a node between it and the capital fell, rather than to its own attack")
+		public boolean isCutOff;
+	}
+
+	// ========================================
+
+	@Name("monarch.SortieVictory")
+	@Label("Sortie Victory")
+	@Category({CATEGORY, "Sorties"})
+	@StackTrace(false)
+	public static class SortieVictoryEvent extends Event {
+		@Label("Node")
+		@Description("Where the sortie was launched from")
+		public int nodeId;
+		@Label("Day")
+		public int dayCount;
+		@Label("Strongholds Left")
+		public int strongholdsLeft;
+	}
+
+	// ========================================
+
+	@Name("monarch.SortieCasualty")
+	@Label("Sortie Casualty")
+	@Category({CATEGORY, "Sorties"})
+	@StackTrace(false)
+	public static class SortieCasualtyEvent extends Event {
+		@Label("Node")
+		public int nodeId;
+		@Label("Military Units Left")
+		public int unitsLeft;
+	}
+
+	// ========================================
+
+	@Name("monarch.ConstructionFinished")
+	@Label("Construction Finished")
+	@Description("A settlement has been built or upgraded")
+	@Category({CATEGORY, "Kingdom"})
+	@StackTrace(false)
+	public static class ConstructionFinishedEvent extends Event {
+		@Label("Node")
+		public int nodeId;
+		@Label("Settlement")
+		public String settlementType;
+		@Label("Level")
+		public int level;
+		@Label("Upgrade")
+		public boolean isUpgrade;
+	}
+
+	// ========================================
+
+	@Name("monarch.SaveGame")
+	@Label("Save Game")
+	@Description("Writing a saved game (but not the in-memory copies made for the GUI)")
+	@Category({CATEGORY, "Persistence"})
+	public static class SaveGameEvent extends Event {
+		@Label("Day")
+		public int dayCount;
+		@Label("Nodes")
+		public int nodeCount;
+	}
+
+	// ========================================
+
+	@Name("monarch.LoadGame")
+	@Label("Load Game")
+	@Category({CATEGORY, "Persistence"})
+	public static class LoadGameEvent extends Event {
+		@Label("Day")
+		public int dayCount;
+		@Label("Nodes")
+		public int nodeCount;
+	}
+
+
+}
\ No newline at end of file
@@ -1,14 +1,20 @@
 // An instance of an attack against a single node on a single night
 
 package core;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
 
-public class FrontierAttack implements Serializable {
+public class FrontierAttack implements Scheduled, Serializable {
 
 	private MapNode node;
 	private int totalDanger;
 	private double dangerSoFar; // this increases over the course of the night until it hits totalDanger
+	private double lastUpdate; // nighttime clock time that dangerSoFar has been worked out up to
+	private double dangerRate; // latched, per night
+	private int defenseRating; // latched from the target node; the attack breaks through once it's exceeded
 
 
 	public FrontierAttack(MapNode n, int d) {
@@ -18,8 +24,55 @@ public class FrontierAttack implements Serializable {
 
 	// =============================
 
-	public void update(double progress) {
-		dangerSoFar += progress * totalDanger;
+	public void advanceTo(double time) {
+		double elapsed = time - lastUpdate;
+		if (elapsed <= 0.0) {
+			return;
+		}
+		dangerSoFar += elapsed * dangerRate;
+		lastUpdate = time;
+	}
+
+	// =============================
+
+	public void fireEvents(GameInstance instance) {
+		if (dangerSoFar > defenseRating) {
+			instance.onAttackBrokenThrough(this);
+		}
+	}
+
+	// =============================
+
+	public void latchRates(GameInstance instance) {
+		dangerRate = totalDanger;
+		defenseRating = instance.getDefenseRating(node);
+	}
+
+	// =============================
+
+	public double getNextEventTime() {
+		// when the danger will exceed the node's defense rating (whether the night lasts that long or not); it has to
+		// get past it, so an attack that only matches the defense as the night ends doesn't break through
+		if (dangerSoFar > defenseRating) {
+			return lastUpdate;
+		}
+		if (dangerRate <= 0.0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return lastUpdate + (defenseRating + EPSILON - dangerSoFar) / dangerRate;
+	}
+
+	// =============================
+
+	void writeState(DataOutput out) throws IOException {
+		// used by SaveGameWriter; the target node is written by the caller
+		out.writeInt(totalDanger);
+		out.writeDouble(dangerSoFar);
+	}
+
+	void readState(DataInput in) throws IOException {
+		totalDanger = in.readInt();
+		dangerSoFar = in.readDouble();
 	}
 
 	// =============================
@@ -36,6 +89,18 @@ public class FrontierAttack implements Serializable {
 
 	// =============================
 
+	public double getLastUpdate() {
+		return lastUpdate;
+	}
+
+	// =============================
+
+	public void setLastUpdate(double time) {
+		lastUpdate = time;
+	}
+
+	// =============================
+
 	public int getTotalDanger() {
 		return totalDanger;
 	}
@@ -0,0 +1,205 @@
+// Keeps the recent past of a game so it can be rewound to any tick, for looking into how it got where it is. A full
+// keyframe of the game state is kept at the start of every day, and between keyframes only the commands applied,
+// since the game always plays out the same way from a state given the same commands (see CommandLogWriter). Restoring
+// a tick loads the keyframe before it and plays forward. The oldest keyframes are dropped to stay under a memory cap.
+
+package core;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+
+public class GameHistory {
+
+	private ArrayDeque<Keyframe> keyframes; // oldest first
+	private Map map; // shared by every state in the history, since maps don't change
+	private int tickLength; // in ms of game time, which the game has to be updated with
+	private long memoryCap; // in bytes
+	private long memoryUsed;
+	private boolean hasFailed; // recording stops after the first error, rather than stopping the game
+
+
+	private static class Keyframe {
+		private long tick;
+		private byte[] state; // as written by SaveGameWriter.writeGame
+		private ByteArrayOutputStream commandBytes; // commands applied since, each stamped with ticks since the previous one
+		private DataOutputStream commands;
+		private long lastCommandTick;
+
+		private Keyframe(long t, byte[] s) {
+			tick = t;
+			state = s;
+			commandBytes = new ByteArrayOutputStream();
+			commands = new DataOutputStream(commandBytes);
+			lastCommandTick = t;
+		}
+
+		private long getSize() {
+			return state.length + commandBytes.size();
+		}
+	}
+
+
+	public GameHistory(GameInstance game, int tickLength, long memoryCap) {
+		// the history starts from the game as it is now, which should be between ticks
+		keyframes = new ArrayDeque<Keyframe>();
+		map = game.getMap();
+		this.tickLength = tickLength;
+		this.memoryCap = memoryCap;
+		recordKeyframe(game);
+	}
+
+	// ========================================
+
+	void record(long tick, PlayerCommand command) {
+		if (hasFailed) {
+			return;
+		}
+		Keyframe k = keyframes.peekLast();
+		int before = k.commandBytes.size();
+		try {
+			SaveGameWriter.writeVarInt(k.commands, (int)(tick - k.lastCommandTick));
+			command.write(k.commands);
+		}
+		catch (IOException e) {
+			onError(e);
+			return;
+		}
+		k.lastCommandTick = tick;
+		memoryUsed += k.commandBytes.size() - before;
+		trim();
+	}
+
+	// ========================================
+
+	void recordKeyframe(GameInstance game) {
+		if (hasFailed) {
+			return;
+		}
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			SaveGameWriter.writeGame(out, game);
+			out.flush();
+			Keyframe k = new Keyframe(game.getTickCount(), bytes.toByteArray());
+			keyframes.addLast(k);
+			memoryUsed += k.getSize();
+			trim();
+		}
+		catch (IOException e) {
+			onError(e);
+		}
+	}
+
+	// ========================================
+
+	private void trim() {
+		// the newest keyframe is always kept, even over the cap, or the current day couldn't be restored at all
+		while (memoryUsed > memoryCap && keyframes.size() > 1) {
+			memoryUsed -= keyframes.removeFirst().getSize();
+		}
+	}
+
+	// ========================================
+
+	private void onError(IOException e) {
+		hasFailed = true;
+		keyframes.clear();
+		memoryUsed = 0;
+		System.err.println("ERROR: could not record game history, so this game can't be rewound: " + e);
+	}
+
+	// ========================================
+
+	public GameInstance restore(long tick) {
+		// A new game as the recorded one was when the given tick began (before any commands were applied on it). The
+		// tick has to be within the history and no later than the recorded game's current one.
+		if (keyframes.isEmpty() || tick < getEarliestTick()) {
+			throw new IllegalArgumentException("Tick " + tick + " is no longer in the game's history");
+		}
+		Keyframe k = null;
+		for (Iterator<Keyframe> it = keyframes.descendingIterator(); it.hasNext(); ) {
+			k = it.next();
+			if (k.tick <= tick) {
+				break;
+			}
+		}
+		try {
+			GameInstance game = SaveGameReader.readGame(new DataInputStream(new ByteArrayInputStream(k.state)), map);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(k.commandBytes.toByteArray()));
+			long commandTick = k.tick;
+			PlayerCommand command = null;
+			boolean hasMoreCommands = true;
+			while (game.getTickCount() < tick) {
+				while (true) {
+					if (command == null && hasMoreCommands) {
+						try {
+							commandTick += SaveGameReader.readVarInt(in);
+							command = PlayerCommand.read(in);
+						}
+						catch (EOFException e) {
+							hasMoreCommands = false;
+						}
+					}
+					if (command == null || commandTick != game.getTickCount()) {
+						break;
+					}
+					game.submitCommand(command);
+					command = null;
+				}
+				game.update(game.getProgressForTime(tickLength));
+			}
+			return game;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Game history is corrupt", e); // can't happen: it was written just above
+		}
+		catch (GameOverException e) {
+			throw new IllegalArgumentException("Tick " + tick + " is after the end of the game");
+		}
+	}
+
+	// ========================================
+
+	public GameInstance rewind(long tick) {
+		// Like restore, but the history is cut back to the given tick too, so that it carries on from the restored
+		// game (which is attached to it) instead of the one it was recording.
+		GameInstance game = restore(tick);
+		while (!keyframes.isEmpty() && keyframes.peekLast().tick >= tick) {
+			memoryUsed -= keyframes.removeLast().getSize();
+		}
+		// (the commands recorded after the tick stay with the previous keyframe, but nothing reads that far)
+		recordKeyframe(game);
+		game.setHistory(this);
+		return game;
+	}
+
+	// ========== ACCESSORS =============
+
+	public long getEarliestTick() {
+		return keyframes.peekFirst().tick;
+	}
+
+	public int getKeyframeCount() {
+		return keyframes.size();
+	}
+
+	public long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	public int getTickLength() {
+		return tickLength;
+	}
+
+	public boolean hasFailed() {
+		return hasFailed;
+	}
+
+
+}
\ No newline at end of file
@@ -2,11 +2,24 @@
 
 package core;
 import java.awt.geom.Point2D.Double;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
 import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 
-public class GameInstance implements Serializable {
+public class GameInstance implements Serializable, GameView {
 
 	private static final double MONARCH_BASE_MOVE_SPEED = 60.0; // in map coords
 	public static final int NODE_CAPTURE_COST = 5;
@@ -14,24 +27,74 @@ public class GameInstance implements Serializable {
 	public static final int DEFENSE_PER_SOLDIER = 3;
 	public static final double CAPTAIN_STRENGTH_BONUS = 1.2;
 	public static final double NIGHT_TO_DAY_RATIO = 0.666; // length of night compared to day
+	public static final int DAY_LENGTH = 100000; // in ms of real time
 	private static final double MARGINAL_EQUIP_COST_WORKER = 0.5; // how much more each costs than the last
 	private static final double MARGINAL_EQUIP_COST_SOLDIER = 0.25;
 	private static final int[] purseSizes = new int[]{20, 25, 35, 45, 60}; // limits on what the monarch can carry
 	private static final int[] retinueLimits = new int[]{3, 4, 5, 6, 8};
 	private static final double[] monarchMoveSpeedBonuses = new double[]{0.0, 0.0, 0.05, 0.1, 0.15}; // confered by capital level
-	private static final double HOUSING_PER_OPEN_NODE = 0.5; // housing capacity of a human-controlled node with no settlement
 	private static final int CITY_EXCLUSION_DISTANCE = 2; // distance that must be between cities
 	private GameState state; // the model in MVC
 	private Double monarchMovementDirection;
+	private PopGrowthModifier popGrowthModifier; // cached until the pop-to-housing ratio leaves its band
+	private long seed; // the map and all game randomness are derived from this
+	private GameRandom random;
+	private ConcurrentLinkedQueue<PlayerCommand> commands; // queued by the GUI thread, applied by the engine thread
+	private EventScheduler dayEvents; // settlements and walls, by when they next need handling (see Scheduled)
+	private EventScheduler nightEvents; // tonight's attacks, by when they will break through
+	private LinkedList<GoldMine> goldMines; // mine output has too many inputs to schedule, so it's still updated every tick
+	private PopGrowthModifier latchedGrowthModifier; // the one that city growth rates are currently latched with
+	private long tickCount; // how many updates have been played, which is what command logs are stamped with
+	private transient CommandLogWriter commandLog; // null unless the commands applied to this game are being recorded
+	private transient GameHistory history; // null unless this game can be rewound
+	private transient GameMetrics metrics; // GameMetrics.DISABLED unless something is watching this game
+	private transient EnumSet<Change> changes; // raised as the game changes, until whoever is showing it takes them
+
+
+	public enum Change {
+		MAP, // anything drawn on the map or in the node details: nodes, settlements, walls, attacks, sorties or the monarch's position
+		KINGDOM, // the monarch's gold and retinue, the day count or the danger level
+		CLOCK // time has passed, so progress through the day or night (and on anything timed) has moved on
+	}
 
 
 	public GameInstance() {
-		//state = new GameState(Map.getDefaultMap(), DifficultyLevel.getDefault());
-		state = new GameState(MapGen.createMap(), DifficultyLevel.getDefault());
+		this(GameRandom.newSeed());
+	}
+
+	public GameInstance(long s) {
+		//this(s, Map.getDefaultMap());
+		this(s, MapGen.createMap(s));
+	}
+
+	public GameInstance(long s, Map map) {
+		// map should be the one generated from this seed, so it can be cached and reused between runs
+		seed = s;
+		random = new GameRandom(seed).split(); // kept separate from the stream MapGen used
+		state = new GameState(map, DifficultyLevel.getDefault(), random);
 		monarchMovementDirection = new Double(0, 0);
+		commands = new ConcurrentLinkedQueue<PlayerCommand>();
+		dayEvents = new EventScheduler();
+		nightEvents = new EventScheduler();
+		goldMines = new LinkedList<GoldMine>();
+		metrics = GameMetrics.DISABLED;
+		changes = EnumSet.allOf(Change.class);
 		init();
 	}
 
+	GameInstance(GameState s, long sd, GameRandom r, Double dir, long ticks) {
+		// used by SaveGameReader to resume a game that is already set up
+		state = s;
+		seed = sd;
+		random = r;
+		monarchMovementDirection = dir;
+		tickCount = ticks;
+		commands = new ConcurrentLinkedQueue<PlayerCommand>();
+		metrics = GameMetrics.DISABLED;
+		changes = EnumSet.allOf(Change.class);
+		rebuildSchedule();
+	}
+
 	// =================================
 
 	private void init() {
@@ -40,12 +103,14 @@ public class GameInstance implements Serializable {
 		state.exploreNode(root);
 		state.captureNode(root, true);
 		state.setMonarchLocation(root);
-		Settlement capital = new Capital(2);
-		capital.addGold(20);
-		state.addSettlement(capital, root);
 		for (int i = 0; i < 5; i++) {
 			state.addSubjectToNodePopulation(root, SubjectType.IDLE, this);
 		}
+		// (after the subjects, so there's a population for its growth rate to be worked out from)
+		latchedGrowthModifier = getPopGrowthModifier();
+		Settlement capital = new Capital(2);
+		capital.addGold(20);
+		addSettlement(capital, root);
 
 		state.increaseDangerLevel(1.0);
 
@@ -53,7 +118,7 @@ public class GameInstance implements Serializable {
 		for (MapNode node: state.getMap().getPeddlerLocations()) {
 			Peddler peddler = new Peddler();
 			peddler.addGold(2);
-			state.addSettlement(peddler, node);
+			addSettlement(peddler, node);
 		}
 
 		// Add enemy strongholds:
@@ -73,10 +138,10 @@ public class GameInstance implements Serializable {
 
 			// add some population to uncaptured nodes:
 			if (!state.isNodeCaptured(node)) {
-				if (Math.random() < 0.5) {
+				if (random.nextDouble() < 0.5) {
 					state.addSubjectToNodePopulation(node, SubjectType.IDLE, this);
 					// some of them have 2 pop:
-					if (Math.random() < 0.25) {
+					if (random.nextDouble() < 0.25) {
 						state.addSubjectToNodePopulation(node, SubjectType.IDLE, this);
 					}
 				}
@@ -86,73 +151,363 @@ public class GameInstance implements Serializable {
 
 	// =================================
 
+	private void rebuildSchedule() {
+		// The schedule isn't saved. Latching afresh from a loaded game gives the same rates as before it was saved, since
+		// anything that changes a rate's inputs re-latches it straight away.
+		dayEvents = new EventScheduler();
+		nightEvents = new EventScheduler();
+		goldMines = new LinkedList<GoldMine>();
+		dayEvents.setTime(state.getDaytimeClock());
+		nightEvents.setTime(state.getNighttimeClock());
+		latchedGrowthModifier = getPopGrowthModifier();
+		for (Settlement s: state.getAllSettlements()) {
+			schedule(s, state.findLocationOfSettlement(s));
+		}
+		for (Wall w: state.getAllWalls()) {
+			schedule(w, state.findLocationOfWall(w));
+		}
+		for (FrontierAttack a: state.getFrontierAttacks()) {
+			// ones that have already broken through aren't scheduled again
+			if (state.isNodeCaptured(a.getTargetNode())) {
+				schedule(a);
+			}
+		}
+	}
+
+	// =================================
+
+	private void addSettlement(Settlement s, MapNode node) {
+		state.addSettlement(s, node);
+		s.setLastUpdate(dayEvents.getTime());
+		schedule(s, node);
+	}
+
+	private void schedule(Settlement s, MapNode node) {
+		s.latchRates(this);
+		dayEvents.add(s, node.getId() * 2);
+		if (s instanceof GoldMine) {
+			goldMines.add((GoldMine)s);
+		}
+	}
+
+	private void removeSettlementAt(MapNode node) {
+		Settlement s = state.getSettlementAt(node);
+		state.removeSettlementAt(node);
+		dayEvents.remove(s);
+		goldMines.remove(s);
+	}
+
+	// =================================
+
+	private void addWall(Wall w, MapNode node) {
+		state.addWall(w, node);
+		w.setLastUpdate(dayEvents.getTime());
+		schedule(w, node);
+	}
+
+	private void schedule(Wall w, MapNode node) {
+		w.latchRates(this);
+		dayEvents.add(w, node.getId() * 2 + 1);
+	}
+
+	private void removeWallAt(MapNode node) {
+		dayEvents.remove(state.getWallAtNode(node));
+		state.removeWallAt(node);
+	}
+
+	// =================================
+
+	private void addFrontierAttack(FrontierAttack a) {
+		state.addFrontierAttack(a);
+		a.setLastUpdate(nightEvents.getTime());
+		schedule(a);
+	}
+
+	private void schedule(FrontierAttack a) {
+		a.latchRates(this);
+		nightEvents.add(a, a.getTargetNode().getId());
+	}
+
+	// =================================
+
+	void touchNode(MapNode node) {
+		// touches whatever is at the node, e.g. after its population has changed
+		Settlement s = state.getSettlementAt(node);
+		if (s != null) {
+			dayEvents.touch(s, this);
+		}
+		Wall w = state.getWallAtNode(node);
+		if (w != null) {
+			dayEvents.touch(w, this);
+		}
+		FrontierAttack a = state.getAttackAtNode(node);
+		if (a != null) {
+			nightEvents.touch(a, this); // defense depends on the soldiers there
+		}
+	}
+
+	void advanceNode(MapNode node) {
+		// brings progress at the node up to date without re-latching, for changes (like farmers leaving their fields) that need it
+		Settlement s = state.getSettlementAt(node);
+		if (s != null) {
+			dayEvents.advance(s);
+		}
+		Wall w = state.getWallAtNode(node);
+		if (w != null) {
+			dayEvents.advance(w);
+		}
+		FrontierAttack a = state.getAttackAtNode(node);
+		if (a != null) {
+			nightEvents.advance(a);
+		}
+	}
+
+	// =================================
+
+	private void fireEventsUntil(EventScheduler events, double end) {
+		// handles everything that comes due before the given time on the scheduler's clock, in the order it comes due
+		while (events.getNextEventTime() <= end) {
+			long start = metrics.startTimer();
+			events.setTime(Math.max(events.getTime(), events.getNextEventTime()));
+			Scheduled s = events.pollNextEvent();
+			s.advanceTo(events.getTime());
+			s.fireEvents(this);
+			events.touch(s, this);
+			changes.add(Change.MAP);
+			changes.add(Change.KINGDOM);
+			checkGrowthModifier();
+			metrics.stopTimer(s instanceof Settlement ? GameMetrics.Section.SETTLEMENTS : s instanceof Wall ? GameMetrics.Section.WALLS : GameMetrics.Section.ATTACKS, start);
+			metrics.increment(GameMetrics.Counter.SCHEDULED_EVENTS);
+		}
+		events.setTime(end);
+	}
+
+	// =================================
+
+	private void checkGrowthModifier() {
+		// city growth rates are latched with the pop growth modifier, so they all need touching when it changes
+		PopGrowthModifier modifier = getPopGrowthModifier();
+		if (modifier == latchedGrowthModifier) {
+			return;
+		}
+		latchedGrowthModifier = modifier;
+		changes.add(Change.KINGDOM);
+		for (Settlement s: state.getAllSettlements()) {
+			if (s instanceof City || s instanceof Capital) {
+				dayEvents.touch(s, this);
+			}
+		}
+	}
+
+	// =================================
+
+	public void submitCommand(PlayerCommand c) {
+		// safe to call from any thread; the command takes effect at the start of the next update
+		commands.add(c);
+	}
+
+	public void processCommands() {
+		// must only be called on the thread that updates the game
+		long start = metrics.startTimer();
+		dayEvents.setTime(state.getDaytimeClock());
+		nightEvents.setTime(state.getNighttimeClock());
+		for (PlayerCommand c = commands.poll(); c != null; c = commands.poll()) {
+			if (commandLog != null) {
+				commandLog.record(tickCount, c);
+			}
+			if (history != null) {
+				history.record(tickCount, c);
+			}
+			c.apply(this);
+			changes.add(Change.MAP);
+			changes.add(Change.KINGDOM);
+			metrics.increment(GameMetrics.Counter.COMMANDS);
+		}
+		checkGrowthModifier();
+		metrics.stopTimer(GameMetrics.Section.COMMANDS, start);
+	}
+
+	// =================================
+
+	public GameInstance copy() {
+		// A deep copy that shares this game's (immutable) map, made with the save format. The engine
+		// publishes these for the GUI to paint from while it carries on updating the original.
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			SaveGameWriter.writeGame(out, this);
+			out.flush();
+			GameInstance copy = SaveGameReader.readGame(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), getMap());
+			// bring progress up to date for display (the original is left alone so its arithmetic doesn't depend on being copied):
+			for (Scheduled s: copy.dayEvents.getAll()) {
+				copy.dayEvents.advance(s);
+			}
+			for (Scheduled s: copy.nightEvents.getAll()) {
+				copy.nightEvents.advance(s);
+			}
+			return copy;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not copy game", e); // can't happen with in-memory streams
+		}
+	}
+
+	// =================================
+
+	public long getStateHash() {
+		// A fingerprint of everything in the save format, which is everything that decides how the game plays out
+		// from here; used to check that a replay has stayed exactly in step with the game it was recorded from.
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+			SaveGameWriter.writeGame(out, this);
+			out.flush();
+			return ByteBuffer.wrap(digest.digest()).getLong();
+		}
+		catch (IOException | NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Could not hash game", e); // can't happen: nothing is written anywhere
+		}
+	}
+
+	// =================================
+
 	public void update(double progress) {
 		// This is what the GameEngine calls to advance the game. Progress is the percantage of day or night that has passed.
+		long tickStart = metrics.startTimer();
+		FlightEvents.TickEvent tickEvent = new FlightEvents.TickEvent();
+		tickEvent.begin();
+		processCommands();
 		if (state.getDayNightTime() + progress > 1.0) {
 			progress = 1.0 - state.getDayNightTime();
 		}
 
 		// settlements only progress during the day:
 		if (isDaytime()) {
-			for (Settlement s: state.getAllSettlements()) {
-				s.updateSettlement(this, progress);
-			}
-			for (Wall w: state.getAllWalls()) {
-				w.update(progress, this);
+			fireEventsUntil(dayEvents, state.getDaytimeClock() + progress);
+			if (goldMines.size() > 0) {
+				long start = metrics.startTimer();
+				for (GoldMine m: goldMines) {
+					m.updateProduction(this, progress);
+				}
+				metrics.stopTimer(GameMetrics.Section.SETTLEMENTS, start);
 			}
 		}
 		else {
-			// Update attacks:
-			LinkedList<FrontierAttack> attacksCopy = new LinkedList<FrontierAttack>();
-			attacksCopy.addAll(state.getFrontierAttacks());
-			for (FrontierAttack attack: attacksCopy) {
-				MapNode target = attack.getTargetNode();
-				// Some attacks may have already finished...skip them
-				if (!state.isNodeCaptured(target)) {
-					continue;
-				}
-				
-				attack.update(progress);
-				
-				if (attack.getCurrentStrength() > getDefenseRating(target)) {
-					// lose this node:
-					loseNode(target);
-
-					// continue attack to parent:
-					FrontierAttack parentAttack = getAttackAtNode(target.getParent());
-					int remainingStrength = (int)Math.round(attack.getTotalDanger() - attack.getCurrentStrength());
-					if (parentAttack == null) {
-						// start a new attack with remaining strength:
-						state.addFrontierAttack(new FrontierAttack(target.getParent(), remainingStrength));
-					}
-					else {
-						parentAttack.addTotalDanger(remainingStrength);
-					}
-				}
+			// and attacks only at night; each one is handled when it breaks through:
+			fireEventsUntil(nightEvents, state.getNighttimeClock() + progress);
+			if (state.getFrontierAttacks().size() > 0) {
+				changes.add(Change.MAP); // they're shown closing in
 			}
 		}
 
 		// sorties;
+		long start = metrics.startTimer();
 		LinkedList<Sortie> sortieList = new LinkedList<Sortie>();
 		sortieList.addAll(state.getSorties()); // copy to avoid concurrent mod errors
 		for (Sortie s: sortieList) {
+			// some may have already ended...skip them
+			if (!state.getSorties().contains(s)) {
+				continue;
+			}
 			s.update(progress, this);
 		}
+		if (sortieList.size() > 0) {
+			changes.add(Change.MAP);
+			metrics.stopTimer(GameMetrics.Section.SORTIES, start);
+		}
 
 		// update time:
+		boolean hasDayBegun = false;
 		if (state.updateDayNightTime(progress)) {
 			// A day or night has ended.
+			start = metrics.startTimer();
+			FlightEvents.DayNightTransitionEvent transitionEvent = new FlightEvents.DayNightTransitionEvent();
+			transitionEvent.begin();
 			if (isDaytime()) {
 				onDayBegin();
+				hasDayBegun = true;
 			}
 			else {
 				onNightBegin();
 			}
+			changes.add(Change.MAP);
+			changes.add(Change.KINGDOM);
+			transitionEvent.end();
+			if (transitionEvent.shouldCommit()) {
+				transitionEvent.dayCount = state.getDayCount();
+				transitionEvent.isDaytime = isDaytime();
+				transitionEvent.dangerLevel = state.getDangerLevel();
+				transitionEvent.attackCount = state.getFrontierAttacks().size();
+				transitionEvent.commit();
+			}
+			metrics.stopTimer(GameMetrics.Section.DAY_NIGHT, start);
 		}
 
 		// movement:
 		if (monarchMovementDirection.getX() != 0.0 || monarchMovementDirection.getY() != 0.0) {
+			start = metrics.startTimer();
 			updateMonarchMovement(progress);
+			changes.add(Change.MAP);
+			metrics.stopTimer(GameMetrics.Section.MONARCH_MOVEMENT, start);
+		}
+
+		checkGrowthModifier();
+		changes.add(Change.CLOCK);
+		tickCount++;
+		if (hasDayBegun && commandLog != null) {
+			// a replay checks it has got to the same place at the start of every day
+			commandLog.recordCheckpoint(tickCount, getStateHash());
+		}
+		if (hasDayBegun && history != null) {
+			// (taken here rather than in onDayBegin, since a game can only be resumed from between ticks)
+			history.recordKeyframe(this);
+		}
+		metrics.stopTimer(GameMetrics.Section.TICK, tickStart);
+		metrics.endTick();
+		tickEvent.end();
+		if (tickEvent.shouldCommit()) {
+			tickEvent.dayCount = state.getDayCount();
+			tickEvent.isDaytime = isDaytime();
+			tickEvent.dayNightTime = state.getDayNightTime();
+			tickEvent.commit();
+		}
+	}
+
+	// =================================
+
+	public double getProgressForTime(int ms) {
+		// Converts an amount of real time into the percentage of the current day or night that it represents
+		if (isDaytime()) {
+			return (double)ms / DAY_LENGTH;
+		}
+		else {
+			return (double)ms / (int)(DAY_LENGTH * NIGHT_TO_DAY_RATIO);
+		}
+	}
+
+	// =================================
+
+	void onAttackBrokenThrough(FrontierAttack attack) {
+		MapNode target = attack.getTargetNode();
+		nightEvents.remove(attack);
+		// Some attacks may have already finished...skip them
+		if (!state.isNodeCaptured(target)) {
+			return;
+		}
+
+		// lose this node:
+		loseNode(target);
+
+		// continue attack to parent:
+		FrontierAttack parentAttack = getAttackAtNode(target.getParent());
+		int remainingStrength = (int)Math.round(attack.getTotalDanger() - attack.getCurrentStrength());
+		if (parentAttack == null) {
+			// start a new attack with remaining strength:
+			addFrontierAttack(new FrontierAttack(target.getParent(), remainingStrength));
+		}
+		else {
+			parentAttack.addTotalDanger(remainingStrength);
+			nightEvents.touch(parentAttack, this);
 		}
 	}
 
@@ -160,26 +515,25 @@ public class GameInstance implements Serializable {
 
 	private void loseNode(MapNode target) {
 		// lose it to an attack
+		metrics.increment(GameMetrics.Counter.NODES_LOST);
+		recordNodeLost(target, false);
 		if (target == state.getMap().getRootNode()) {
 			gameOver(false);
 			return;
 		}
 
 		if (state.getSettlementAt(target) != null) {
-			state.removeSettlementAt(target);
+			removeSettlementAt(target);
 		}
 		if (state.getWallAtNode(target) != null) {
-			state.removeWallAt(target);
+			removeWallAt(target);
 		}
 
 		state.uncaptureNode(target);
 		// Move all soldiers and captains back:
 		for (SubjectType st: SubjectType.values()) {
 			if (!st.isCivilian()) {
-				while (state.getPopulationAtNode(target, st) > 0) {
-					state.subtractPopulationAtNode(target, st, this);
-					state.addSubjectToNodePopulation(target.getParent(), st, this);
-				}
+				state.moveSubjects(target, target.getParent(), st, state.getPopulationAtNode(target, st), this);
 			}
 		}
 
@@ -199,10 +553,7 @@ public class GameInstance implements Serializable {
 		}
 		// move remaining civilians back to parent node:
 		for (SubjectType st: SubjectType.values()) {
-			while (state.getPopulationAtNode(target, st) > 0) {
-				state.subtractPopulationAtNode(target, st, this);
-				state.addSubjectToNodePopulation(target.getParent(), st, this);
-			}
+			state.moveSubjects(target, target.getParent(), st, state.getPopulationAtNode(target, st), this);
 		}
 
 
@@ -214,12 +565,15 @@ public class GameInstance implements Serializable {
 
 	private void loseAllDownstreamNodes(MapNode target) {
 		if (isNodeCaptured(target)) {
+			metrics.increment(GameMetrics.Counter.NODES_LOST);
+			recordNodeLost(target, true);
 			if (state.getSettlementAt(target) != null) {
-				state.removeSettlementAt(target);
+				removeSettlementAt(target);
 			}
 			state.uncaptureNode(target);
 			// kill all subjects, including soldiers:
 			state.clearPopulationAtNode(target);
+			touchNode(target); // walls are left standing
 		}
 		for (MapNode child: target.getChildren()) {
 			loseAllDownstreamNodes(child);
@@ -228,6 +582,18 @@ public class GameInstance implements Serializable {
 
 	// =================================
 
+	private void recordNodeLost(MapNode node, boolean isCutOff) {
+		FlightEvents.NodeLostEvent event = new FlightEvents.NodeLostEvent();
+		if (event.shouldCommit()) {
+			event.nodeId = node.getId();
+			event.dayCount = state.getDayCount();
+			event.isCutOff = isCutOff;
+			event.commit();
+		}
+	}
+
+	// =================================
+
 	private void onDayBegin() {
 		// Generate daily gold at palace:
 		Settlement palace = getSettlementAt(state.getMap().getRootNode());
@@ -241,6 +607,7 @@ public class GameInstance implements Serializable {
 		state.increaseDangerLevel(state.getDifficultyLevel().getDailyDangerIncrease(state.getDayCount()));
 
 		state.clearFrontierAttacks();
+		nightEvents.clear();
 	}
 
 	// =================================
@@ -251,42 +618,28 @@ public class GameInstance implements Serializable {
 
 		// Generate the attacks for tonight:
 		for (MapNode node: state.getFrontiers()) {
-			if (!hasDownstreamStronghold(node)) {
+			if (!state.hasDownstreamStronghold(node)) {
 				continue;
 			}
 			double danger = state.getDangerLevel();
 			// random variance:
-			danger = danger * (0.8 + Math.random()*0.4);
+			danger = danger * (0.8 + random.nextDouble()*0.4);
 
-			state.addFrontierAttack(new FrontierAttack(node, (int)Math.round(danger)));
+			addFrontierAttack(new FrontierAttack(node, (int)Math.round(danger)));
 		}
 	}
 
 	// =================================
 
-	private boolean hasDownstreamStronghold(MapNode node) {
-		for (MapNode child: node.getChildren()) {
-			// If this child is captured (can happen at forks), stop looking at it b/c attacks from anything
-			// downstream will hit this child instead:
-			if (state.isNodeCaptured(child)) {
-				continue;
-			}
-			if (state.getStrongholdAt(child) != null || hasDownstreamStronghold(child)) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	// =================================
-
 	private void updateMonarchMovement(double progress) {
 		// Case 1: monarch is currently at a node:
 		if (state.getMonarchNodeLocation() != null) {
 			MapNode newDest = Map.findNeighborInDirection(state.getMonarchNodeLocation(), monarchMovementDirection);
 			if (newDest != null) {
 				// Monarch is moving in the direction of a new node.
+				MapNode oldNode = state.getMonarchNodeLocation();
 				state.startMovingTowards(newDest);
+				touchNode(oldNode); // the retinue no longer works there
 			}
 		}
 		// Case 2: monarch is between nodes:
@@ -305,6 +658,7 @@ public class GameInstance implements Serializable {
 			if (Map.calculateDistance(new Double(dest.getX(), dest.getY()), state.getMonarchLocation()) < movementDistance) {
 				// monarch has arrived at new dest
 				state.setMonarchLocation(dest);
+				touchNode(dest);
 				state.exploreNode(dest);
 				// stop movement so they don't overshoot:
 				monarchMovementDirection = new Double(0, 0);
@@ -374,6 +728,7 @@ public class GameInstance implements Serializable {
 
 		state.addMonarchGold(n);
 		settlement.addGold(-1 * n);
+		dayEvents.touch(settlement, this); // peddlers start making gold again once there's room
 	}
 
 	// =================================
@@ -433,7 +788,7 @@ public class GameInstance implements Serializable {
 			return;
 		}
 
-		state.addSubjectToRetinue(s);
+		state.addSubjectToRetinue(s, this);
 		state.subtractPopulationAtNode(node, s, this);
 	}
 
@@ -450,7 +805,7 @@ public class GameInstance implements Serializable {
 			return;
 		}
 
-		state.subtractSubjectFromRetinue(s);
+		state.subtractSubjectFromRetinue(s, this);
 		state.addSubjectToNodePopulation(node, s, this);
 	}
 
@@ -480,8 +835,8 @@ public class GameInstance implements Serializable {
 		spendMoney(cost);
 		// If there is an idle subject in the retinue, convert them:
 		if (state.getRetinueCount(SubjectType.IDLE) > 0) {
-			state.subtractSubjectFromRetinue(SubjectType.IDLE);
-			state.addSubjectToRetinue(subjectType);
+			state.subtractSubjectFromRetinue(SubjectType.IDLE, this);
+			state.addSubjectToRetinue(subjectType, this);
 		}
 		else {
 			// Otherwise, convert one at the local settlement:
@@ -512,9 +867,15 @@ public class GameInstance implements Serializable {
 		// Success!
 		state.captureNode(node, false);
 		state.addMonarchGold(-1 * NODE_CAPTURE_COST);
+		FlightEvents.NodeCapturedEvent event = new FlightEvents.NodeCapturedEvent();
+		if (event.shouldCommit()) {
+			event.nodeId = node.getId();
+			event.dayCount = state.getDayCount();
+			event.commit();
+		}
 		Settlement oldSettlement = getSettlementAt(node);
 		if (oldSettlement instanceof Peddler) {
-			state.removeSettlementAt(node);
+			removeSettlementAt(node);
 		}
 
 		// move up military units:
@@ -527,22 +888,13 @@ public class GameInstance implements Serializable {
 		}
 		if (newFrontierCount == 1) {
 			// only one child, move all soldiers up:
-			while (state.getPopulationAtNode(parentNode, SubjectType.SOLDIER) > 0) {
-				state.addSubjectToNodePopulation(node, SubjectType.SOLDIER, this);
-				state.subtractPopulationAtNode(parentNode, SubjectType.SOLDIER, this);
-			}
-			while (state.getPopulationAtNode(parentNode, SubjectType.CAPTAIN) > 0) {
-				state.addSubjectToNodePopulation(node, SubjectType.CAPTAIN, this);
-				state.subtractPopulationAtNode(parentNode, SubjectType.CAPTAIN, this);
-			}
+			state.moveSubjects(parentNode, node, SubjectType.SOLDIER, state.getPopulationAtNode(parentNode, SubjectType.SOLDIER), this);
+			state.moveSubjects(parentNode, node, SubjectType.CAPTAIN, state.getPopulationAtNode(parentNode, SubjectType.CAPTAIN), this);
 		}
 		else {
 			// multiple fontiers exist
 			int n = state.getPopulationAtNode(parentNode, SubjectType.SOLDIER) / 2;
-			for (int i = 0; i < n; i++) {
-				state.addSubjectToNodePopulation(node, SubjectType.SOLDIER, this);
-				state.subtractPopulationAtNode(parentNode, SubjectType.SOLDIER, this);
-			}
+			state.moveSubjects(parentNode, node, SubjectType.SOLDIER, n, this);
 		}
 	}
 
@@ -604,7 +956,7 @@ public class GameInstance implements Serializable {
 
 		// success:
 		state.addMonarchGold(-1 * City.getCost(1));
-		state.addSettlement(new City(), node);
+		addSettlement(new City(), node);
 	}
 
 	// =================================
@@ -628,7 +980,7 @@ public class GameInstance implements Serializable {
 
 		// success:
 		state.addMonarchGold(-1 * Farm.getCost(1));
-		state.addSettlement(new Farm(), node);
+		addSettlement(new Farm(), node);
 	}
 
 	// =================================
@@ -647,7 +999,7 @@ public class GameInstance implements Serializable {
 
 		// success:
 		state.addMonarchGold(-1 * GoldMine.getCost());
-		state.addSettlement(new GoldMine(), node);
+		addSettlement(new GoldMine(), node);
 	}
 
 	// =================================
@@ -701,8 +1053,8 @@ public class GameInstance implements Serializable {
 			return;
 		}
 		Settlement settlement = state.getSettlementAt(state.getMonarchNodeLocation());
-		// settlement must exist and not be max level:
-		if (settlement == null || settlement.isUpgrading() || settlement.getLevel() >= settlement.getMaxLevel()) {
+		// settlement must exist, be built and not be max level:
+		if (settlement == null || settlement.isBuildingSite() || settlement.isUpgrading() || settlement.getLevel() >= settlement.getMaxLevel()) {
 			return;
 		}
 		if (!isSettlementUpgradeUnlocked(settlement)) {
@@ -715,6 +1067,7 @@ public class GameInstance implements Serializable {
 		// success:
 		spendMoney(settlement.getUpgradeCost());
 		settlement.beginUpgrade();
+		dayEvents.touch(settlement, this);
 	}
 
 	// =================================
@@ -758,7 +1111,7 @@ public class GameInstance implements Serializable {
 			if (getAvailableGold() >= Wall.getCost(1)) {
 				// success:
 				spendMoney(Wall.getCost(1));
-				state.addWall(new Wall(), node);
+				addWall(new Wall(), node);
 			}
 		}
 		// upgrading a wall:
@@ -770,6 +1123,7 @@ public class GameInstance implements Serializable {
 				// success:
 				spendMoney(wall.getUpgradeCost());
 				wall.beginUpgrade();
+				dayEvents.touch(wall, this);
 			}
 		}
 	}
@@ -792,6 +1146,7 @@ public class GameInstance implements Serializable {
 				settlement.addGold(-1 * settlement.getGold());
 				state.addMonarchGold(-1 * n);
 			}
+			dayEvents.touch(settlement, this);
 		}
 	}
 
@@ -845,15 +1200,7 @@ public class GameInstance implements Serializable {
 
 	public boolean isFrontier(MapNode node) {
 		// Must be captured AND border a non-captured node
-		if (!state.isNodeCaptured(node)) {
-			return false;
-		}
-		for (MapNode child: node.getChildren()) {
-			if (!state.isNodeCaptured(child)) {
-				return true;
-			}
-		}
-		return false;
+		return state.isFrontier(node);
 	}
 
 	// =================================
@@ -897,13 +1244,23 @@ public class GameInstance implements Serializable {
 
 	public void sortieVictory(Sortie s) {
 		state.removeSortie(s);
+		// any other sortie against the same stronghold has nothing left to fight:
+		for (Sortie other = state.getSortieTargeting(s.getTarget()); other != null; other = state.getSortieTargeting(s.getTarget())) {
+			state.removeSortie(other);
+		}
 		state.removeStronghold(s.getTarget());
+		FlightEvents.SortieVictoryEvent event = new FlightEvents.SortieVictoryEvent();
+		if (event.shouldCommit()) {
+			event.nodeId = s.getLocation().getId();
+			event.dayCount = state.getDayCount();
+			event.strongholdsLeft = state.countStrongholds();
+			event.commit();
+		}
 		if (state.countStrongholds() == 0) {
-			state.setGameResult(true);
-			throw new GameOverException();
+			gameOver(true);
 		}
 		if (state.getMonarchNodeLocation() == s.getLocation() 
-			&& !hasDownstreamStronghold(s.getLocation())
+			&& !state.hasDownstreamStronghold(s.getLocation())
 			&& state.getSpecialRetinue() == null) 
 		{
 			formVictoriousArmy();
@@ -918,10 +1275,9 @@ public class GameInstance implements Serializable {
 		MapNode loc = state.getMonarchNodeLocation();
 		for (SubjectType st: SubjectType.values()) {
 			if (!st.isCivilian()) {
-				while (state.getPopulationAtNode(loc, st) > 0) {
-					state.subtractPopulationAtNode(loc, st, this);
-					specialRet.addSubject(st);
-				}
+				int n = state.getPopulationAtNode(loc, st);
+				state.subtractPopulationAtNode(loc, st, n, this);
+				specialRet.addSubjects(st, n);
 			}
 		}
 		state.setSpecialRetinue("Victorious army", specialRet);
@@ -937,7 +1293,7 @@ public class GameInstance implements Serializable {
 		}
 		// case 2: there is a soldier in the retinue:
 		else if (state.getRetinueCount(SubjectType.SOLDIER) > 0) {
-			state.subtractSubjectFromRetinue(SubjectType.SOLDIER);
+			state.subtractSubjectFromRetinue(SubjectType.SOLDIER, this);
 		}
 		// case 3: captain at the node:
 		else if (getPopulationAtNode(node, SubjectType.CAPTAIN) > 0) {
@@ -945,7 +1301,14 @@ public class GameInstance implements Serializable {
 		}
 		// case 4: captain in retinue:
 		else if (state.getRetinueCount(SubjectType.CAPTAIN) > 0) {
-			state.subtractSubjectFromRetinue(SubjectType.CAPTAIN);
+			state.subtractSubjectFromRetinue(SubjectType.CAPTAIN, this);
+		}
+
+		FlightEvents.SortieCasualtyEvent event = new FlightEvents.SortieCasualtyEvent();
+		if (event.shouldCommit()) {
+			event.nodeId = node.getId();
+			event.unitsLeft = getTotalSubjectsAtNode(node, SubjectType.SOLDIER) + getTotalSubjectsAtNode(node, SubjectType.CAPTAIN);
+			event.commit();
 		}
 
 		// check to see if sortie is out of military units:
@@ -964,6 +1327,9 @@ public class GameInstance implements Serializable {
 
 	private void gameOver(boolean playerWon) {
 		state.setGameResult(playerWon);
+		if (commandLog != null) {
+			commandLog.recordGameOver(tickCount, getStateHash());
+		}
 		throw new GameOverException();
 	}
 
@@ -1029,9 +1395,7 @@ public class GameInstance implements Serializable {
 
 		Population specialRet = state.getSpecialRetinue();
 		for (SubjectType st: SubjectType.values()) {
-			for (int i = 0; i < specialRet.getCount(st); i++) {
-				state.addSubjectToNodePopulation(node, st, this);
-			}
+			state.addSubjectsToNodePopulation(node, st, specialRet.getCount(st), this);
 		}
 		state.clearSpecialRetinue();
 	}
@@ -1039,27 +1403,23 @@ public class GameInstance implements Serializable {
 	// =================================
 
 	public int getTotalHousingCapacity() {
-		double capacity = 0;
-		// add a little for open nodes:
-		for (MapNode node: state.getMap().getNodeList()) {
-			if (state.isNodeCaptured(node) && state.getSettlementAt(node) == null) {
-				capacity += HOUSING_PER_OPEN_NODE;
-			}
-		}
-		// add housing from settlements:
-		for (Settlement s: state.getAllSettlements()) {
-			if (!s.isBuildingSite()) {
-				capacity += s.getHousingCapacity();
-			}
-		}
+		return (int)Math.round(state.getTotalHousingCapacity());
+	}
+
+	// =================================
 
-		return (int)Math.round(capacity);
+	public void onHousingCapacityChanged(int n) {
+		state.adjustHousingCapacity(n);
 	}
 
 	// =================================
 
 	public PopGrowthModifier getPopGrowthModifier() {
-		return PopGrowthModifier.getCurrentModifier((double)state.getTotalKingdomPopulation().getTotal() / getTotalHousingCapacity());
+		double ratio = (double)state.getTotalKingdomPopulation().getTotal() / getTotalHousingCapacity();
+		if (popGrowthModifier == null || !popGrowthModifier.appliesToRatio(ratio)) {
+			popGrowthModifier = PopGrowthModifier.getCurrentModifier(ratio);
+		}
+		return popGrowthModifier;
 	}
 
 	// =================================
@@ -1090,15 +1450,28 @@ public class GameInstance implements Serializable {
 
 	// =================================
 
-	public static int determineGoldVeinAmount() {
+	public static int determineGoldVeinAmount(GameRandom rand) {
 		// decides how much gold is in a particualr vein
-		return 60 + (int)(Math.random() * 60);
+		return 60 + (int)(rand.nextDouble() * 60);
 	}
 
 	// =================================
 
 	public void decrementGoldInVein(GoldMine g) {
+		// (called whenever a mine produces gold)
 		state.decrementGoldInVein(state.findLocationOfSettlement(g));
+		changes.add(Change.MAP);
+		changes.add(Change.KINGDOM);
+	}
+
+	// =================================
+
+	public Set<Change> takeChanges() {
+		// what has changed since this was last called (everything, the first time); must only be called on the
+		// thread that updates the game
+		Set<Change> result = changes;
+		changes = EnumSet.noneOf(Change.class);
+		return result;
 	}
 
 	// =========== ACCESSORS ==============
@@ -1112,18 +1485,22 @@ public class GameInstance implements Serializable {
 	}
 
 	public FrontierAttack getAttackAtNode(MapNode node) {
-		for (FrontierAttack attack: state.getFrontierAttacks()) {
-			if (attack.getTargetNode() == node) {
-				return attack;
-			}
-		}
-		return null;
+		return state.getAttackAtNode(node);
 	}
 
 	public Capital getCapital() {
 		return state.getCapital();
 	}
 
+	public CommandLogWriter getCommandLog() {
+		return commandLog;
+	}
+
+	public void setCommandLog(CommandLogWriter log) {
+		// commands are recorded from the next one applied; see CommandLogWriter
+		commandLog = log;
+	}
+
 	public double getDangerLevel() {
 		return state.getDangerLevel();
 	}
@@ -1136,6 +1513,10 @@ public class GameInstance implements Serializable {
 		return state.getDayNightTime();
 	}
 
+	public LinkedList<FrontierAttack> getFrontierAttacks() {
+		return state.getFrontierAttacks();
+	}
+
 	public boolean getGameResult() {
 		return state.getGameResult();
 	}
@@ -1148,10 +1529,28 @@ public class GameInstance implements Serializable {
 		return state.getGoldVeinAmount(state.findLocationOfSettlement(g));
 	}
 
+	public GameHistory getHistory() {
+		return history;
+	}
+
+	public void setHistory(GameHistory h) {
+		// commands and keyframes are recorded into it from here on; see GameHistory
+		history = h;
+	}
+
 	public Map getMap() {
 		return state.getMap();
 	}
 
+	public GameMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(GameMetrics m) {
+		// the engine running this game attaches the metrics it reports
+		metrics = m;
+	}
+
 	public int getMonarchGold() {
 		return state.getMonarchGold();
 	}
@@ -1164,6 +1563,10 @@ public class GameInstance implements Serializable {
 		return monarchMoveSpeedBonuses[state.getCapital().getLevel() - 1];
 	}
 
+	Double getMonarchMovementDirection() {
+		return monarchMovementDirection;
+	}
+
 	public MapNode getMonarchNodeLocation() {
 		return state.getMonarchNodeLocation();
 	}
@@ -1176,6 +1579,10 @@ public class GameInstance implements Serializable {
 		return state.getPopulationAtNode(node, s);
 	}
 
+	GameRandom getRandom() {
+		return random;
+	}
+
 	public int getRetinueCount() {
 		return state.getRetinueCount();
 	}
@@ -1184,6 +1591,10 @@ public class GameInstance implements Serializable {
 		return state.getRetinueCount(s);
 	}
 
+	public long getSeed() {
+		return seed;
+	}
+
 	public Settlement getSettlementAt(MapNode node) {
 		return state.getSettlementAt(node);
 	}
@@ -1204,10 +1615,18 @@ public class GameInstance implements Serializable {
 		return state.getSortieTargeting(stronghold);
 	}
 
+	GameState getState() {
+		return state;
+	}
+
 	public Stronghold getStrongholdAt(MapNode node) {
 		return state.getStrongholdAt(node);
 	}
 
+	public long getTickCount() {
+		return tickCount;
+	}
+
 	public Population getTotalKingdomPopulation() {
 		return state.getTotalKingdomPopulation();
 	}
@@ -0,0 +1,204 @@
+// Where a game's time goes: counters plus latency histograms for each part of a tick and for painting. Turned on with
+// -Dmonarch.metricsInterval=<seconds>, which also sets how often a CSV report is written (to -Dmonarch.metricsFile if
+// given, otherwise to the console); each report covers the interval since the one before. When metrics are off,
+// DISABLED is used, whose timers return before reading the clock, so the hooks can stay in for ordinary play.
+//
+// The parts of a tick are timed on the thread that updates the game and added up over the tick, so each sample is
+// how long that part took in one tick (ticks where it didn't run aren't sampled). Painting is sampled per frame.
+
+package core;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Locale;
+
+
+public class GameMetrics {
+
+	public static final GameMetrics DISABLED = new GameMetrics(false, 0, null);
+	private static final String CSV_HEADER = "elapsed_s,kind,name,count,total_ms,mean_us,p50_us,p90_us,p99_us,max_us";
+	private boolean isEnabled;
+	private LatencyHistogram[] histograms; // indexed by section ordinal
+	private long[] tickTotals; // time spent in each section so far this tick, in ns (game thread only)
+	private boolean[] ranThisTick;
+	private long[] counters; // indexed by counter ordinal (game thread only)
+	private long reportInterval; // in ns of real time
+	private long startTime;
+	private long nextReportTime;
+	private PrintStream out; // where reports go
+	private boolean isHeaderWritten;
+
+
+	public enum Section {
+		TICK, // the whole of GameInstance.update
+		COMMANDS, // applying the player's queued commands
+		SETTLEMENTS,
+		WALLS,
+		ATTACKS,
+		SORTIES,
+		DAY_NIGHT, // the work done when day or night begins
+		MONARCH_MOVEMENT,
+		PAINT // on the GUI thread, one sample per panel repainted
+	}
+
+	public enum Counter {
+		TICKS,
+		SCHEDULED_EVENTS, // settlements, walls and attacks handled by the event schedulers
+		COMMANDS,
+		NODES_LOST, // to attacks, including the ones cut off behind them
+		ENGINE_STALLS // times the engine fell too far behind real time and skipped ahead
+	}
+
+
+	public GameMetrics(boolean enabled, int reportSeconds, PrintStream o) {
+		isEnabled = enabled;
+		histograms = new LatencyHistogram[Section.values().length];
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+		tickTotals = new long[histograms.length];
+		ranThisTick = new boolean[histograms.length];
+		counters = new long[Counter.values().length];
+		reportInterval = reportSeconds * 1000000000L;
+		out = o;
+		startTime = System.nanoTime();
+		nextReportTime = startTime + reportInterval;
+	}
+
+	// ========================================
+
+	public static GameMetrics fromSystemProperties() {
+		int interval = Integer.getInteger("monarch.metricsInterval", 0);
+		if (interval <= 0) {
+			return DISABLED;
+		}
+		PrintStream out = System.out;
+		String filename = System.getProperty("monarch.metricsFile");
+		if (filename != null) {
+			try {
+				out = new PrintStream(new FileOutputStream(filename), false);
+			}
+			catch (IOException e) {
+				System.err.println("Could not open metrics file " + filename + ", reporting to the console instead: " + e);
+			}
+		}
+		return new GameMetrics(true, interval, out);
+	}
+
+	// ========================================
+
+	public long startTimer() {
+		return isEnabled ? System.nanoTime() : 0;
+	}
+
+	public void stopTimer(Section section, long start) {
+		// adds to the section's total for this tick; see endTick
+		if (!isEnabled) {
+			return;
+		}
+		tickTotals[section.ordinal()] += System.nanoTime() - start;
+		ranThisTick[section.ordinal()] = true;
+	}
+
+	public void endTick() {
+		// records each section that ran this tick
+		if (!isEnabled) {
+			return;
+		}
+		for (int i = 0; i < tickTotals.length; i++) {
+			if (ranThisTick[i]) {
+				histograms[i].record(tickTotals[i]);
+				tickTotals[i] = 0;
+				ranThisTick[i] = false;
+			}
+		}
+		counters[Counter.TICKS.ordinal()]++;
+	}
+
+	// ========================================
+
+	public void record(Section section, long start) {
+		// records one sample straight away, for work that isn't part of a tick (safe from any thread)
+		if (!isEnabled) {
+			return;
+		}
+		histograms[section.ordinal()].record(System.nanoTime() - start);
+	}
+
+	// ========================================
+
+	public void increment(Counter counter) {
+		if (isEnabled) {
+			counters[counter.ordinal()]++;
+		}
+	}
+
+	public void increment(Counter counter, int n) {
+		if (isEnabled) {
+			counters[counter.ordinal()] += n;
+		}
+	}
+
+	// ========================================
+
+	public void reportIfDue() {
+		// call from the game thread; writes a report once every interval
+		if (!isEnabled) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (now >= nextReportTime) {
+			report(now);
+			nextReportTime = Math.max(nextReportTime + reportInterval, now);
+		}
+	}
+
+	public void report() {
+		if (isEnabled) {
+			report(System.nanoTime());
+		}
+	}
+
+	private void report(long now) {
+		if (!isHeaderWritten) {
+			out.println(CSV_HEADER);
+			isHeaderWritten = true;
+		}
+		String elapsed = format((now - startTime) / 1e9);
+		for (Section s: Section.values()) {
+			LatencyHistogram h = histograms[s.ordinal()].copyAndReset();
+			out.println(elapsed + ",section," + s + "," + h.getCount()
+				+ "," + format(h.getTotal() / 1e6)
+				+ "," + format(h.getMean() / 1e3)
+				+ "," + format(h.getPercentile(50) / 1e3)
+				+ "," + format(h.getPercentile(90) / 1e3)
+				+ "," + format(h.getPercentile(99) / 1e3)
+				+ "," + format(h.getMax() / 1e3));
+		}
+		for (Counter c: Counter.values()) {
+			out.println(elapsed + ",counter," + c + "," + counters[c.ordinal()] + ",,,,,,");
+			counters[c.ordinal()] = 0;
+		}
+		out.flush();
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value); // always with a decimal point, whatever the locale
+	}
+
+	// ========== ACCESSORS =============
+
+	public long getCount(Counter counter) {
+		return counters[counter.ordinal()];
+	}
+
+	public LatencyHistogram getHistogram(Section section) {
+		return histograms[section.ordinal()];
+	}
+
+	public boolean isEnabled() {
+		return isEnabled;
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+// Small seedable random number generator (SplitMix64) used for map generation and game logic, so runs can be reproduced from a seed
+
+package core;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public class GameRandom implements Serializable {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53; // 1.0 / (1L << 53)
+	private static final AtomicLong seedUniquifier = new AtomicLong(System.nanoTime()); // for unseeded games
+	private long state;
+
+
+	public GameRandom(long seed) {
+		state = seed;
+	}
+
+	// =====================================
+
+	public static long newSeed() {
+		// picks a fresh seed for games and maps that weren't given one
+		return mix64(seedUniquifier.addAndGet(GOLDEN_GAMMA) ^ System.nanoTime());
+	}
+
+	// =====================================
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	// =====================================
+
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix64(state);
+	}
+
+	// =====================================
+
+	public double nextDouble() {
+		// uniform in [0, 1), a drop-in replacement for Math.random()
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	// =====================================
+
+	public int nextInt(int bound) {
+		// uniform in [0, bound)
+		return (int)(nextDouble() * bound);
+	}
+
+	// =====================================
+
+	public GameRandom split() {
+		// creates an independent generator, seeded from this one
+		return new GameRandom(nextLong());
+	}
+
+	// ========== ACCESSORS =============
+
+	public long getState() {
+		return state;
+	}
+
+	public void setState(long s) {
+		state = s;
+	}
+
+
+}
\ No newline at end of file
@@ -2,65 +2,205 @@
 
 package core;
 import java.awt.geom.Point2D.Double;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 
 
 public class GameState implements Serializable {
 
+	private static final double HOUSING_PER_OPEN_NODE = 0.5; // housing capacity of a human-controlled node with no settlement
+	private static final byte UNKNOWN = 0; // values for downstreamStrongholds
+	private static final byte NO = 1;
+	private static final byte YES = 2;
 	private Map map;
 	private DifficultyLevel difficulty;
 	private int dayCounter;
 	private Double monarchLocation; // exact map coords, used only when monarch is between nodes
 	private MapNode monarchLocationNode; // used when monarch is at a node
 	private MapEdge monarchLocationEdge;
-	private HashMap<MapNode, Boolean> exploredNodes;
-	private HashMap<MapNode, Boolean> humanNodes; // ones captured by the player
+	// per-node state is stored in arrays and bitsets indexed by node id:
+	private BitSet exploredNodes;
+	private BitSet humanNodes; // ones captured by the player
 	private boolean isDaytime;
 	private double dayNightTime; // always between 0 and 1.0, records progress through either the day or the night
 	private int monarchGold; // how much they are carrying
-	private HashMap<MapNode, Settlement> settlements;
-	private HashMap<MapNode, Population> populations; // tracks all subjects at all nodes
+	private Settlement[] settlements;
+	private Population[] populations; // tracks all subjects at all nodes
 	private Population retinue;
-	private LinkedList<MapNode> capturedThisTurn; // all nodes captured on this day
-	private HashMap<MapNode, Wall> walls;
+	private BitSet capturedThisTurn; // all nodes captured on this day
+	private Wall[] walls;
 	private double dangerLevel;
 	private LinkedList<FrontierAttack> attacks;
-	private HashMap<MapNode, Stronghold> strongholds;
+	private FrontierAttack[] nodeAttacks; // tonight's attack on each node, if any
+	private Stronghold[] strongholds;
 	private LinkedList<Sortie> sorties;
 	private boolean isGameOver;
 	private boolean gameResult; // did the player win?
 	private Population totalKingdomPopulation;
 	private Population specialRetinue; // a group of subjects following the monarch but different from normal retinue
 	private String specialRetinueName;
-	private HashMap<MapNode, Integer> goldVeins; // int portion is the amount of gold in them
+	private int[] goldVeins; // the amount of gold in them (zero for nodes without a vein)
+	private LinkedHashMap<Settlement, MapNode> settlementLocations; // reverse indices of the arrays above, kept in sync with them
+	private LinkedHashMap<Wall, MapNode> wallLocations;
+	private HashMap<Stronghold, MapNode> strongholdLocations;
+	private double totalHousingCapacity; // kept up to date as nodes and settlements change
+	private BitSet frontiers; // captured nodes with at least one non-captured child, kept up to date on capture
+	private byte[] downstreamStrongholds; // cached results of hasDownstreamStronghold, cleared along the root path on changes
 
 
-	public GameState(Map m, DifficultyLevel d) {
+	public GameState(Map m, DifficultyLevel d, GameRandom rand) {
+		this(m, d);
+		for (MapNode n: map.getGoldVeins()) {
+			goldVeins[n.getId()] = GameInstance.determineGoldVeinAmount(rand);
+		}
+	}
+
+	private GameState(Map m, DifficultyLevel d) {
 		map = m;
 		difficulty = d;
-		exploredNodes = new HashMap<MapNode, Boolean>();
-		humanNodes = new HashMap<MapNode, Boolean>();
-		settlements = new HashMap<MapNode, Settlement>();
+		int numNodes = map.getNodeCount();
+		exploredNodes = new BitSet(numNodes);
+		humanNodes = new BitSet(numNodes);
+		settlements = new Settlement[numNodes];
 		isDaytime = true;
 		dayCounter = 1;
-		populations = new HashMap<MapNode, Population>();
-		for (MapNode node: map.getNodeList()) {
-			populations.put(node, new Population());
+		populations = new Population[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			populations[i] = new Population();
 		}
 		retinue = new Population();
 		totalKingdomPopulation = new Population();
-		capturedThisTurn = new LinkedList<MapNode>();
-		walls = new HashMap<MapNode, Wall>();
+		capturedThisTurn = new BitSet(numNodes);
+		frontiers = new BitSet(numNodes);
+		downstreamStrongholds = new byte[numNodes];
+		walls = new Wall[numNodes];
 		attacks = new LinkedList<FrontierAttack>();
-		strongholds = new HashMap<MapNode, Stronghold>();
+		nodeAttacks = new FrontierAttack[numNodes];
+		strongholds = new Stronghold[numNodes];
 		sorties = new LinkedList<Sortie>();
-		goldVeins = new HashMap<MapNode, Integer>();
+		goldVeins = new int[numNodes];
+		settlementLocations = new LinkedHashMap<Settlement, MapNode>();
+		wallLocations = new LinkedHashMap<Wall, MapNode>();
+		strongholdLocations = new HashMap<Stronghold, MapNode>();
+	}
+
+	// ===================================================
+
+	void writeState(DataOutput out) throws IOException {
+		// Used by SaveGameWriter. Settlements, walls, strongholds, sorties and attacks are written
+		// by the caller as separate records; totals and caches are rebuilt on load instead of being saved.
+		out.writeByte(difficulty.ordinal());
+		out.writeInt(dayCounter);
+		out.writeBoolean(isDaytime);
+		out.writeDouble(dayNightTime);
+		out.writeInt(monarchGold);
+		out.writeDouble(dangerLevel);
+		out.writeBoolean(isGameOver);
+		out.writeBoolean(gameResult);
+
+		out.writeBoolean(monarchLocationNode != null);
+		if (monarchLocationNode != null) {
+			SaveGameWriter.writeVarInt(out, monarchLocationNode.getId());
+		}
+		else {
+			SaveGameWriter.writeVarInt(out, monarchLocationEdge.getA().getId());
+			SaveGameWriter.writeVarInt(out, monarchLocationEdge.getB().getId());
+			out.writeDouble(monarchLocation.getX());
+			out.writeDouble(monarchLocation.getY());
+		}
+
+		SaveGameWriter.writeBitSet(out, exploredNodes);
+		SaveGameWriter.writeBitSet(out, humanNodes);
+		SaveGameWriter.writeBitSet(out, capturedThisTurn);
 		for (MapNode n: map.getGoldVeins()) {
-			goldVeins.put(n, GameInstance.determineGoldVeinAmount());
+			out.writeInt(goldVeins[n.getId()]);
+		}
+
+		// populations, skipping empty nodes:
+		int numPopulated = 0;
+		for (Population p: populations) {
+			if (p.getTotal() != 0) {
+				numPopulated++;
+			}
+		}
+		SaveGameWriter.writeVarInt(out, numPopulated);
+		int lastId = 0;
+		for (int i = 0; i < populations.length; i++) {
+			if (populations[i].getTotal() != 0) {
+				SaveGameWriter.writeVarInt(out, i - lastId);
+				SaveGameWriter.writePopulation(out, populations[i]);
+				lastId = i;
+			}
+		}
+		SaveGameWriter.writePopulation(out, retinue);
+		SaveGameWriter.writePopulation(out, totalKingdomPopulation);
+		out.writeBoolean(specialRetinue != null);
+		if (specialRetinue != null) {
+			out.writeUTF(specialRetinueName);
+			SaveGameWriter.writePopulation(out, specialRetinue);
+		}
+	}
+
+	static GameState readState(DataInput in, Map m) throws IOException {
+		// the counterpart of writeState; the caller must add the records and then call rebuildDerivedState
+		GameState state = new GameState(m, DifficultyLevel.values()[in.readByte()]);
+		state.dayCounter = in.readInt();
+		state.isDaytime = in.readBoolean();
+		state.dayNightTime = in.readDouble();
+		state.monarchGold = in.readInt();
+		state.dangerLevel = in.readDouble();
+		state.isGameOver = in.readBoolean();
+		state.gameResult = in.readBoolean();
+
+		if (in.readBoolean()) {
+			state.monarchLocationNode = m.getNode(SaveGameReader.readVarInt(in));
+		}
+		else {
+			MapNode a = m.getNode(SaveGameReader.readVarInt(in));
+			MapNode b = m.getNode(SaveGameReader.readVarInt(in));
+			state.monarchLocationEdge = new MapEdge(a, b);
+			state.monarchLocation = new Double(in.readDouble(), in.readDouble());
+		}
+
+		state.exploredNodes = SaveGameReader.readBitSet(in);
+		state.humanNodes = SaveGameReader.readBitSet(in);
+		state.capturedThisTurn = SaveGameReader.readBitSet(in);
+		for (MapNode n: m.getGoldVeins()) {
+			state.goldVeins[n.getId()] = in.readInt();
+		}
+
+		int numPopulated = SaveGameReader.readVarInt(in);
+		int id = 0;
+		for (int i = 0; i < numPopulated; i++) {
+			id += SaveGameReader.readVarInt(in);
+			SaveGameReader.readPopulation(in, state.populations[id]);
+		}
+		SaveGameReader.readPopulation(in, state.retinue);
+		SaveGameReader.readPopulation(in, state.totalKingdomPopulation);
+		if (in.readBoolean()) {
+			state.specialRetinueName = in.readUTF();
+			state.specialRetinue = new Population();
+			SaveGameReader.readPopulation(in, state.specialRetinue);
 		}
+		return state;
+	}
+
+	void rebuildDerivedState() {
+		// recomputes running totals and caches once a loaded state has all of its settlements and strongholds
+		totalHousingCapacity = 0.0;
+		for (MapNode n: map.getNodeList()) {
+			totalHousingCapacity += getHousingAtNode(n);
+			updateFrontierStatus(n);
+		}
+		Arrays.fill(downstreamStrongholds, UNKNOWN);
 	}
 
 	// ===================================================
@@ -97,48 +237,124 @@ public class GameState implements Serializable {
 	public void captureNode(MapNode node, boolean ignoreCaptureDelay) {
 		// the 'capture delay' is what prevents a frontier from being advanced twice in a day
 		// it is ignored when capturing nodes at the beginning of the game
-		humanNodes.put(node, true);
+		totalHousingCapacity -= getHousingAtNode(node);
+		humanNodes.set(node.getId());
+		totalHousingCapacity += getHousingAtNode(node);
 		if (!ignoreCaptureDelay) {
-			capturedThisTurn.add(node);
+			capturedThisTurn.set(node.getId());
 		}
+		onCaptureStatusChanged(node);
 
-		totalKingdomPopulation.addAll(populations.get(node));
+		totalKingdomPopulation.addAll(populations[node.getId()]);
 	}
 
 	public void uncaptureNode(MapNode node) {
-		humanNodes.remove(node);
+		totalHousingCapacity -= getHousingAtNode(node);
+		humanNodes.clear(node.getId());
+		totalHousingCapacity += getHousingAtNode(node);
+		onCaptureStatusChanged(node);
+	}
+
+	private void onCaptureStatusChanged(MapNode node) {
+		// a capture only affects whether this node and its parent are frontiers...
+		updateFrontierStatus(node);
+		if (node.getParent() != null) {
+			updateFrontierStatus(node.getParent());
+		}
+		// ...and the downstream stronghold status of its ancestors
+		clearDownstreamStrongholdCache(node.getParent());
+	}
+
+	private void updateFrontierStatus(MapNode node) {
+		boolean isFrontier = false;
+		if (isNodeCaptured(node)) {
+			for (MapNode child: node.getChildren()) {
+				if (!isNodeCaptured(child)) {
+					isFrontier = true;
+					break;
+				}
+			}
+		}
+		frontiers.set(node.getId(), isFrontier);
+	}
+
+	// ===================================================
+
+	private double getHousingAtNode(MapNode node) {
+		// how much this node contributes to the total housing capacity
+		Settlement s = settlements[node.getId()];
+		if (s != null) {
+			return s.getEffectiveHousingCapacity();
+		}
+		return isNodeCaptured(node) ? HOUSING_PER_OPEN_NODE : 0.0;
 	}
 
 	// ===================================================
 
 	public void clearFrontierAttacks() {
+		for (FrontierAttack a: attacks) {
+			nodeAttacks[a.getTargetNode().getId()] = null;
+		}
 		attacks.clear();
 	}
 
 	// ===================================================
 
 	public LinkedList<MapNode> getFrontiers() {
-		// Finds all nodes which are captured but border non-captured nodes
+		// All nodes which are captured but border non-captured nodes
 		LinkedList<MapNode> list = new LinkedList<MapNode>();
-		for (MapNode node: map.getNodeList()) {
-			if (!isNodeCaptured(node)) {
+		for (int i = frontiers.nextSetBit(0); i >= 0; i = frontiers.nextSetBit(i + 1)) {
+			list.add(map.getNode(i));
+		}
+		return list;
+	}
+
+	// ===================================================
+
+	public boolean hasDownstreamStronghold(MapNode node) {
+		byte cached = downstreamStrongholds[node.getId()];
+		if (cached != UNKNOWN) {
+			return cached == YES;
+		}
+
+		boolean found = false;
+		for (MapNode child: node.getChildren()) {
+			// If this child is captured (can happen at forks), stop looking at it b/c attacks from anything
+			// downstream will hit this child instead:
+			if (isNodeCaptured(child)) {
 				continue;
 			}
-			// Look for a non-captured child:
-			for (MapNode child: node.getChildren()) {
-				if (!isNodeCaptured(child)) {
-					list.add(node);
-					break;
-				}
+			if (getStrongholdAt(child) != null || hasDownstreamStronghold(child)) {
+				found = true;
+				break;
 			}
 		}
-		return list;
+		downstreamStrongholds[node.getId()] = found ? YES : NO;
+		return found;
+	}
+
+	private void clearDownstreamStrongholdCache(MapNode node) {
+		// results can only have changed for this node and its ancestors
+		for (MapNode n = node; n != null; n = n.getParent()) {
+			downstreamStrongholds[n.getId()] = UNKNOWN;
+		}
 	}
 
 	// ===================================================
 
 	public void clearPopulationAtNode(MapNode node) {
-		populations.put(node, new Population());
+		populations[node.getId()] = new Population();
+	}
+
+	// ===================================================
+
+	public void moveSubjects(MapNode from, MapNode to, SubjectType s, int n, GameInstance instance) {
+		// moves a group of subjects of one type between nodes all at once
+		if (n <= 0) {
+			return;
+		}
+		subtractPopulationAtNode(from, s, n, instance);
+		addSubjectsToNodePopulation(to, s, n, instance);
 	}
 
 	// ===================================================
@@ -166,7 +382,9 @@ public class GameState implements Serializable {
 	// ================== ACCESSORS =======================
 
 	public void addFrontierAttack(FrontierAttack a) {
+		// there is never more than one attack on a node (later ones add their strength to it instead)
 		attacks.add(a);
+		nodeAttacks[a.getTargetNode().getId()] = a;
 	}
 
 	public void addMonarchGold(int n) {
@@ -174,7 +392,14 @@ public class GameState implements Serializable {
 	}
 
 	public void addSettlement(Settlement s, MapNode node) {
-		settlements.put(node, s);
+		totalHousingCapacity -= getHousingAtNode(node);
+		Settlement old = settlements[node.getId()];
+		settlements[node.getId()] = s;
+		totalHousingCapacity += getHousingAtNode(node);
+		if (old != null) {
+			settlementLocations.remove(old);
+		}
+		settlementLocations.put(s, node);
 	}
 
 	public void addSortie(Sortie s) {
@@ -182,26 +407,59 @@ public class GameState implements Serializable {
 	}
 
 	public void addStronghold(MapNode node, Stronghold s) {
-		strongholds.put(node, s);
+		Stronghold old = strongholds[node.getId()];
+		strongholds[node.getId()] = s;
+		if (old != null) {
+			strongholdLocations.remove(old);
+		}
+		strongholdLocations.put(s, node);
+		clearDownstreamStrongholdCache(node.getParent());
 	}
 
 	public void addSubjectToNodePopulation(MapNode node, SubjectType s, GameInstance instance) {
-		populations.get(node).addSubject(s);
+		addSubjectsToNodePopulation(node, s, 1, instance);
+	}
+
+	public void addSubjectsToNodePopulation(MapNode node, SubjectType s, int n, GameInstance instance) {
+		instance.advanceNode(node);
+		populations[node.getId()].addSubjects(s, n);
 		if (isNodeCaptured(node)) {
-			totalKingdomPopulation.addSubject(s);
+			totalKingdomPopulation.addSubjects(s, n);
 		}
-		if (getSettlementAt(node) != null) {
-			getSettlementAt(node).onSubjectAdded(s, instance);
+		Settlement settlement = getSettlementAt(node);
+		if (settlement != null) {
+			for (int i = 0; i < n; i++) {
+				settlement.onSubjectAdded(s, instance);
+			}
 		}
+		instance.touchNode(node);
 	}
 
-	public void addSubjectToRetinue(SubjectType s) {
+	public void addSubjectToRetinue(SubjectType s, GameInstance instance) {
+		// the retinue counts as being at the monarch's node, so that's touched just like for a population change
+		MapNode node = getMonarchNodeLocation();
+		if (node != null) {
+			instance.advanceNode(node);
+		}
 		retinue.addSubject(s);
 		totalKingdomPopulation.addSubject(s);
+		if (node != null) {
+			instance.touchNode(node);
+		}
+	}
+
+	public void adjustHousingCapacity(int n) {
+		// called when a settlement's capacity changes in place (e.g. it finishes construction or an upgrade)
+		totalHousingCapacity += n;
 	}
 
 	public void addWall(Wall w, MapNode node) {
-		walls.put(node, w);
+		Wall old = walls[node.getId()];
+		walls[node.getId()] = w;
+		if (old != null) {
+			wallLocations.remove(old);
+		}
+		wallLocations.put(w, node);
 	}
 
 	public void changeMonarchLocation(double dx, double dy) {
@@ -209,62 +467,45 @@ public class GameState implements Serializable {
 	}
 
 	public int countStrongholds() {
-		int count = 0;
-		for (MapNode node: strongholds.keySet()) {
-			if (strongholds.get(node) != null) {
-				count++;
-			}
-		}
-		return count;
+		return strongholdLocations.size();
 	}
 
 	public void decrementGoldInVein(MapNode node) {
-		goldVeins.put(node, goldVeins.get(node).intValue() - 1);
+		goldVeins[node.getId()]--;
 	}
 
 	public void exploreNode(MapNode n) {
-		exploredNodes.put(n, true);
+		exploredNodes.set(n.getId());
 	}
 
 	public MapNode findLocationOfSettlement(Settlement s) {
-		for (MapNode node: settlements.keySet()) {
-			if (settlements.get(node) == s) {
-				return node;
-			}
-		}
-		return null;
+		return settlementLocations.get(s);
 	}
 
 	public MapNode findLocationOfStronghold(Stronghold stronghold) {
-		for (MapNode node: strongholds.keySet()) {
-			if (strongholds.get(node) == stronghold) {
-				return node;
-			}
-		}
-		return null;
+		return strongholdLocations.get(stronghold);
 	}
 
 	public MapNode findLocationOfWall(Wall w) {
-		for (MapNode node: walls.keySet()) {
-			if (walls.get(node) == w) {
-				return node;
-			}
-		}
-		return null;
+		return wallLocations.get(w);
 	}
 
 	public Collection<Settlement> getAllSettlements() {
-		return settlements.values();
+		return settlementLocations.keySet();
 	}
 
 	public Collection<Wall> getAllWalls() {
-		return walls.values();
+		return wallLocations.keySet();
 	}
 
 	public LinkedList<MapNode> getArableLand() {
 		return map.getArableLand();
 	}
 
+	public FrontierAttack getAttackAtNode(MapNode node) {
+		return nodeAttacks[node.getId()];
+	}
+
 	public Capital getCapital() {
 		return (Capital)(getSettlementAt(map.getRootNode()));
 	}
@@ -281,6 +522,11 @@ public class GameState implements Serializable {
 		return dayNightTime;
 	}
 
+	public double getDaytimeClock() {
+		// days of daytime that have passed since the game began; stands still at night
+		return isDaytime ? dayCounter - 1 + dayNightTime : dayCounter;
+	}
+
 	public DifficultyLevel getDifficultyLevel() {
 		return difficulty;
 	}
@@ -290,10 +536,7 @@ public class GameState implements Serializable {
 	}
 
 	public int getGoldVeinAmount(MapNode node) {
-		if (goldVeins.get(node) == null) {
-			return 0;
-		}
-		return goldVeins.get(node).intValue();
+		return goldVeins[node.getId()];
 	}
 
 	public LinkedList<FrontierAttack> getFrontierAttacks() {
@@ -313,11 +556,11 @@ public class GameState implements Serializable {
 	}
 
 	public int getPopCountAtNode(MapNode node) {
-		return populations.get(node).getTotal();
+		return populations[node.getId()].getTotal();
 	}
 
 	public int getPopulationAtNode(MapNode node, SubjectType s) {
-		return populations.get(node).getCount(s);
+		return populations[node.getId()].getCount(s);
 	}
 
 	public Double getMonarchLocation() {
@@ -333,6 +576,15 @@ public class GameState implements Serializable {
 		return monarchLocationNode;
 	}
 
+	public double getNighttimeClock() {
+		// the same for nights, which stands still during the day
+		return isDaytime ? dayCounter - 1 : dayCounter - 1 + dayNightTime;
+	}
+
+	public double getTotalHousingCapacity() {
+		return totalHousingCapacity;
+	}
+
 	public int getRetinueCount() {
 		return retinue.getTotal();
 	}
@@ -342,7 +594,7 @@ public class GameState implements Serializable {
 	}
 
 	public Settlement getSettlementAt(MapNode node) {
-		return settlements.get(node);
+		return settlements[node.getId()];
 	}
 
 	public Population getSpecialRetinue() {
@@ -376,7 +628,7 @@ public class GameState implements Serializable {
 	}
 
 	public Stronghold getStrongholdAt(MapNode node) {
-		return strongholds.get(node);
+		return strongholds[node.getId()];
 	}
 
 	public Population getTotalKingdomPopulation() {
@@ -388,11 +640,11 @@ public class GameState implements Serializable {
 	}
 
 	public Wall getWallAtNode(MapNode node) {
-		return walls.get(node);
+		return walls[node.getId()];
 	}
 
 	public boolean hasNodeBeenCapturedThisTurn(MapNode node) {
-		return capturedThisTurn.contains(node);
+		return capturedThisTurn.get(node.getId());
 	}
 
 	public void increaseDangerLevel(double d) {
@@ -403,16 +655,26 @@ public class GameState implements Serializable {
 		return isDaytime;
 	}
 
+	public boolean isFrontier(MapNode node) {
+		return frontiers.get(node.getId());
+	}
+
 	public boolean isNodeCaptured(MapNode node) {
-		return humanNodes.get(node) != null && humanNodes.get(node).booleanValue();
+		return humanNodes.get(node.getId());
 	}
 
 	public boolean isNodeExplored(MapNode node) {
-		return exploredNodes.get(node) != null && exploredNodes.get(node).booleanValue();
+		return exploredNodes.get(node.getId());
 	}
 
 	public void removeSettlementAt(MapNode node) {
-		settlements.remove(node);
+		totalHousingCapacity -= getHousingAtNode(node);
+		Settlement s = settlements[node.getId()];
+		settlements[node.getId()] = null;
+		totalHousingCapacity += getHousingAtNode(node);
+		if (s != null) {
+			settlementLocations.remove(s);
+		}
 	}
 
 	public void removeSortie(Sortie s) {
@@ -420,11 +682,19 @@ public class GameState implements Serializable {
 	}
 
 	public void removeStronghold(Stronghold s) {
-		strongholds.remove(findLocationOfStronghold(s));
+		MapNode node = strongholdLocations.remove(s);
+		if (node != null) {
+			strongholds[node.getId()] = null;
+			clearDownstreamStrongholdCache(node.getParent());
+		}
 	}
 
 	public void removeWallAt(MapNode node) {
-		walls.remove(node);
+		Wall w = walls[node.getId()];
+		walls[node.getId()] = null;
+		if (w != null) {
+			wallLocations.remove(w);
+		}
 	}
 
 	public void setGameResult(boolean playerWon) {
@@ -439,18 +709,35 @@ public class GameState implements Serializable {
 	}
 
 	public void subtractPopulationAtNode(MapNode node, SubjectType s, GameInstance instance) {
-		populations.get(node).subtractSubject(s);
-		if (getSettlementAt(node) != null) {
-			getSettlementAt(node).onSubjectSubtracted(s, instance);
+		subtractPopulationAtNode(node, s, 1, instance);
+	}
+
+	public void subtractPopulationAtNode(MapNode node, SubjectType s, int n, GameInstance instance) {
+		instance.advanceNode(node);
+		populations[node.getId()].subtractSubjects(s, n);
+		Settlement settlement = getSettlementAt(node);
+		if (settlement != null) {
+			for (int i = 0; i < n; i++) {
+				settlement.onSubjectSubtracted(s, instance);
+			}
 		}
 		if (isNodeCaptured(node)) {
-			totalKingdomPopulation.subtractSubject(s);
+			totalKingdomPopulation.subtractSubjects(s, n);
 		}
+		instance.touchNode(node);
 	}
 
-	public void subtractSubjectFromRetinue(SubjectType s) {
+	public void subtractSubjectFromRetinue(SubjectType s, GameInstance instance) {
+		// (see addSubjectToRetinue)
+		MapNode node = getMonarchNodeLocation();
+		if (node != null) {
+			instance.advanceNode(node);
+		}
 		retinue.subtractSubject(s);
 		totalKingdomPopulation.subtractSubject(s);
+		if (node != null) {
+			instance.touchNode(node);
+		}
 	}
 
 
@@ -0,0 +1,121 @@
+// What an automated player (see Policy) can see of a game: the same things the GUI shows, and nothing that changes it.
+// GameInstance implements this; a policy is shown a copy of the game (like the GUI paints from), so anything it does
+// to the objects it gets back is thrown away, and the only way it can act is by returning commands.
+
+package core;
+import java.awt.geom.Point2D.Double;
+
+
+public interface GameView {
+
+
+	// the map and the monarch:
+
+	public Map getMap();
+
+
+	public Double getMonarchLocation();
+
+
+	public MapNode getMonarchNodeLocation(); // null while the monarch is between nodes
+
+
+	public int getMonarchGold();
+
+
+	public int getMonarchMaxGold();
+
+
+	public int getRetinueCount();
+
+
+	public int getRetinueCount(SubjectType s);
+
+
+	public int getRetinueMax();
+
+
+	// time and danger:
+
+	public int getDayCount();
+
+
+	public double getDayNightTime();
+
+
+	public boolean isDaytime();
+
+
+	public double getDangerLevel();
+
+
+	// nodes:
+
+	public boolean isNodeCaptured(MapNode node);
+
+
+	public boolean isNodeExplored(MapNode node);
+
+
+	public boolean isNodeArable(MapNode node);
+
+
+	public boolean isNodeGoldVein(MapNode node);
+
+
+	public boolean isFrontier(MapNode node);
+
+
+	public boolean isTooCloseToCity(MapNode node);
+
+
+	public boolean canNodeBeCaptured(MapNode node); // apart from the monarch having to be there with the gold
+
+
+	public boolean canSortieBeLaunched(MapNode node);
+
+
+	public int getDefenseRating(MapNode node);
+
+
+	public int getPopulationAtNode(MapNode node, SubjectType s);
+
+
+	public int getTotalSubjectsAtNode(MapNode node, SubjectType s); // counting the retinue if the monarch is there
+
+
+	public int getGoldVeinAmount(MapNode node);
+
+
+	// what's on them:
+
+	public Capital getCapital();
+
+
+	public Settlement getSettlementAt(MapNode node);
+
+
+	public Wall getWallAtNode(MapNode node);
+
+
+	public Stronghold getStrongholdAt(MapNode node);
+
+
+	public Sortie getSortieAt(MapNode node);
+
+
+	public FrontierAttack getAttackAtNode(MapNode node);
+
+
+	// the kingdom as a whole:
+
+	public Population getTotalKingdomPopulation();
+
+
+	public int calculateEquipmentCost(SubjectType subjectType);
+
+
+	public boolean isSettlementUpgradeUnlocked(Settlement settlement);
+
+
+}
\ No newline at end of file
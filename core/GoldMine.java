@@ -9,7 +9,7 @@ public class GoldMine extends Settlement {
 	private static final int TREASURY_SIZE = 16;
 	private static final double CONSTRUCTION_TIME = 0.75;
 	private static final double GOLD_PROD_RATE = 5.0; // gold per worker per day
-	private static double nextGoldProgress;
+	private double nextGoldProgress; // towards the next gold this mine produces
 
 
 	public GoldMine() {
@@ -19,16 +19,16 @@ public class GoldMine extends Settlement {
 
 	// ============================================
 
-	protected void update(GameInstance instance, double progress) {
-		if (isBuildingSite) {
-			double newProgress = progress * instance.getTotalSubjectsAtSettlement(this, SubjectType.WORKER) / CONSTRUCTION_TIME;
-			constructionProgress += newProgress;
-			if (constructionProgress >= 1.0) {
-				constructionProgress = 0.0;
-				isBuildingSite = false;
-			}
-		}
-		else {
+	protected double getBuildingTime() {
+		return CONSTRUCTION_TIME;
+	}
+
+	// ============================================
+
+	public void updateProduction(GameInstance instance, double progress) {
+		// Output depends on the vein, the wall and the neighbouring treasuries as well as the workers, which is too
+		// many inputs to latch, so unlike construction this is still done every tick.
+		if (!isBuildingSite) {
 			// produce gold:
 			Wall wall = instance.getWallAtNode(instance.findLocationOfSettlement(this));
 			if (isTreasurySpaceAvailable(instance) 
@@ -120,6 +120,11 @@ public class GoldMine extends Settlement {
 		return nextGoldProgress;
 	}
 
+	void setNextGoldProgress(double p) {
+		// used by SaveGameReader
+		nextGoldProgress = p;
+	}
+
 	public int getUpgradeCost() {
 		// only has one level, so there is no such thing
 		return 0;
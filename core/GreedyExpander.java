@@ -0,0 +1,84 @@
+// A reference bot that captures as much of the map as it can, as fast as it can, building cities along the way for
+// income. It leaves defense to the soldiers that follow captures up the lanes, so it shows how far expansion alone gets.
+
+package core;
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class GreedyExpander extends BotPolicy {
+
+
+	public List<PlayerCommand> decide(GameView game, DecisionPoint point) {
+		List<PlayerCommand> commands = new ArrayList<PlayerCommand>();
+		MapNode here = game.getMonarchNodeLocation();
+		if (here == null) {
+			return commands;
+		}
+		int gold = withdrawGold(game, commands);
+
+		if (!game.isDaytime()) {
+			// nothing can be captured at night, so wait at the capital for the morning's gold:
+			moveTowards(game, game.getMap().getRootNode(), commands);
+			return commands;
+		}
+		if (game.canNodeBeCaptured(here) && gold >= GameInstance.NODE_CAPTURE_COST) {
+			commands.add(new PlayerCommand(PlayerCommand.Type.CAPTURE_NODE, here));
+			return commands;
+		}
+		if (game.isNodeCaptured(here) && game.getSettlementAt(here) == null && !game.isTooCloseToCity(here)
+			&& gold >= City.getCost(1) + GameInstance.NODE_CAPTURE_COST)
+		{
+			commands.add(new PlayerCommand(PlayerCommand.Type.BUILD_CITY, here));
+			gold -= City.getCost(1);
+		}
+
+		if (gold >= GameInstance.NODE_CAPTURE_COST) {
+			moveTowards(game, findClosestCapturable(game, here), commands);
+		}
+		else {
+			moveTowards(game, findClosestTreasury(game, here), commands);
+		}
+		return commands;
+	}
+
+	// =================================
+
+	private MapNode findClosestCapturable(GameView game, MapNode from) {
+		MapNode closest = null;
+		int closestDistance = 0;
+		for (MapNode node: game.getMap().getNodeList()) {
+			if (!game.canNodeBeCaptured(node)) {
+				continue;
+			}
+			int d = Map.getPathLength(from, node);
+			if (closest == null || d < closestDistance) {
+				closest = node;
+				closestDistance = d;
+			}
+		}
+		return closest;
+	}
+
+	// =================================
+
+	private MapNode findClosestTreasury(GameView game, MapNode from) {
+		// the closest of the kingdom's settlements with gold to collect (or the capital, to wait for some)
+		MapNode closest = game.getMap().getRootNode();
+		int closestDistance = Integer.MAX_VALUE;
+		for (MapNode node: game.getMap().getNodeList()) {
+			Settlement settlement = game.getSettlementAt(node);
+			if (settlement == null || settlement.getGold() == 0 || !game.isNodeCaptured(node)) {
+				continue;
+			}
+			int d = Map.getPathLength(from, node);
+			if (d < closestDistance) {
+				closest = node;
+				closestDistance = d;
+			}
+		}
+		return closest;
+	}
+
+
+}
\ No newline at end of file
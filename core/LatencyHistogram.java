@@ -0,0 +1,115 @@
+// Counts of durations in log-scale buckets, the way HDR histograms do it: each power of two is split into 8 linear
+// sub-buckets, so any recorded value is known to within 12.5% while the whole range of a long fits in under 500 buckets.
+// Recording is a few shifts and an increment, so it's cheap enough to do every tick. Safe to share between threads.
+
+package core;
+import java.util.Arrays;
+
+
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	private long[] counts;
+	private long count;
+	private long total;
+	private long max;
+
+
+	public LatencyHistogram() {
+		counts = new long[NUM_BUCKETS];
+	}
+
+	// ========================================
+
+	private static int getBucket(long value) {
+		// values below SUB_BUCKETS get a bucket each; above that, the top SUB_BUCKET_BITS bits after the leading one pick the sub-bucket
+		if (value < SUB_BUCKETS) {
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long getBucketUpperBound(int bucket) {
+		// the largest value that lands in the given bucket
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long lowerBound = (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	// ========================================
+
+	public synchronized void record(long value) {
+		value = Math.max(0, value); // nanoTime can step backwards on some systems
+		counts[getBucket(value)]++;
+		count++;
+		total += value;
+		max = Math.max(max, value);
+	}
+
+	// ========================================
+
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	// ========================================
+
+	public synchronized LatencyHistogram copyAndReset() {
+		// for reporting one interval at a time without holding up whoever is recording
+		LatencyHistogram copy = new LatencyHistogram();
+		System.arraycopy(counts, 0, copy.counts, 0, NUM_BUCKETS);
+		copy.count = count;
+		copy.total = total;
+		copy.max = max;
+		reset();
+		return copy;
+	}
+
+	// ========================================
+
+	public synchronized long getPercentile(double percentile) {
+		// the value that the given percentage (0 to 100) of recorded values are at or below, rounded up to its bucket's bound
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long)Math.ceil(count * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(getBucketUpperBound(i), max);
+			}
+		}
+		return max;
+	}
+
+	// ========== ACCESSORS =============
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	public synchronized long getMax() {
+		return max;
+	}
+
+	public synchronized double getMean() {
+		return count == 0 ? 0.0 : (double)total / count;
+	}
+
+	public synchronized long getTotal() {
+		return total;
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,428 @@
+// Loads saves from before the binary save format, when the whole GameInstance was written with Java serialization.
+// The classes it was written from have changed too much to deserialize into, so the stream is read into stand-ins
+// with the old fields instead (see LegacyInputStream), which are then rewritten in the first version of the binary
+// format for SaveGameReader to load like any other save.
+
+package core;
+import java.awt.geom.Point2D.Double;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+
+
+class LegacySaveReader {
+
+	private static final int CONVERTED_VERSION = 1; // the binary format version legacy saves are rewritten in
+	private static final HashMap<String, Class<?>> STAND_INS = new HashMap<String, Class<?>>();
+
+	static {
+		STAND_INS.put("core.GameInstance", OldGameInstance.class);
+		STAND_INS.put("core.GameState", OldGameState.class);
+		STAND_INS.put("core.Map", OldMap.class);
+		STAND_INS.put("core.MapNode", OldMapNode.class);
+		STAND_INS.put("core.MapEdge", OldMapEdge.class);
+		STAND_INS.put("core.Population", OldPopulation.class);
+		STAND_INS.put("core.Settlement", OldSettlement.class);
+		STAND_INS.put("core.Capital", OldCapital.class);
+		STAND_INS.put("core.City", OldCity.class);
+		STAND_INS.put("core.Farm", OldFarm.class);
+		STAND_INS.put("core.GoldMine", OldGoldMine.class);
+		STAND_INS.put("core.Peddler", OldPeddler.class);
+		STAND_INS.put("core.Stronghold", OldStronghold.class);
+		STAND_INS.put("core.Wall", OldWall.class);
+		STAND_INS.put("core.FrontierAttack", OldFrontierAttack.class);
+		STAND_INS.put("core.Sortie", OldSortie.class);
+	}
+
+	private Map map;
+	private IdentityHashMap<OldMapNode, MapNode> nodes; // old nodes to their counterparts on the new map
+
+
+	// ========================================
+	// Stand-ins for the serialized classes. Their fields must keep the names and types the old classes had, since
+	// that's what the stream is read with; nothing else about them matters.
+
+	private static class OldGameInstance implements Serializable {
+		private OldGameState state;
+		private Double monarchMovementDirection;
+	}
+
+	private static class OldGameState implements Serializable {
+		private OldMap map;
+		private DifficultyLevel difficulty;
+		private int dayCounter;
+		private Double monarchLocation;
+		private OldMapNode monarchLocationNode;
+		private OldMapEdge monarchLocationEdge;
+		private HashMap<OldMapNode, Boolean> exploredNodes;
+		private HashMap<OldMapNode, Boolean> humanNodes;
+		private boolean isDaytime;
+		private double dayNightTime;
+		private int monarchGold;
+		private HashMap<OldMapNode, OldSettlement> settlements;
+		private HashMap<OldMapNode, OldPopulation> populations;
+		private OldPopulation retinue;
+		private LinkedList<OldMapNode> capturedThisTurn;
+		private HashMap<OldMapNode, OldWall> walls;
+		private double dangerLevel;
+		private LinkedList<OldFrontierAttack> attacks;
+		private HashMap<OldMapNode, OldStronghold> strongholds;
+		private LinkedList<OldSortie> sorties;
+		private boolean isGameOver;
+		private boolean gameResult;
+		private OldPopulation totalKingdomPopulation;
+		private OldPopulation specialRetinue;
+		private String specialRetinueName;
+		private HashMap<OldMapNode, Integer> goldVeins;
+	}
+
+	private static class OldMap implements Serializable {
+		private OldMapNode root;
+		private LinkedList<OldMapNode> nodeList;
+		private LinkedList<OldMapNode> intermediateStrongholdLocations;
+		private LinkedList<OldMapNode> peddlerLocations;
+		private LinkedList<OldMapNode> arableLand;
+		private LinkedList<OldMapNode> goldVeins;
+	}
+
+	private static class OldMapNode implements Serializable {
+		private OldMapNode parent;
+		private double x;
+		private double y;
+		private LinkedList<OldMapNode> children;
+	}
+
+	private static class OldMapEdge implements Serializable {
+		private OldMapNode nodeA;
+		private OldMapNode nodeB;
+	}
+
+	private static class OldPopulation implements Serializable {
+		private HashMap<SubjectType, Integer> subjects;
+		private int total;
+	}
+
+	private static class OldSettlement implements Serializable {
+		private int level;
+		private int gold;
+		private double constructionProgress;
+		private boolean isUpgrading;
+		private boolean isBuildingSite;
+	}
+
+	private static class OldCapital extends OldSettlement {
+		private double nextSubjectProgress;
+	}
+
+	private static class OldCity extends OldSettlement {
+		private double nextSubjectProgress;
+	}
+
+	private static class OldFarm extends OldSettlement {
+		private ArrayList<java.lang.Double> cropProgress;
+	}
+
+	private static class OldGoldMine extends OldSettlement {
+	}
+
+	private static class OldPeddler extends OldSettlement {
+		private double progressTowardsNextGold;
+	}
+
+	private static class OldStronghold implements Serializable {
+		private int distanceFromCapital;
+		private boolean isIntermediate;
+	}
+
+	private static class OldWall implements Serializable {
+		private int level;
+		private boolean isBuildingSite;
+		private boolean isUpgrading;
+		private double constructionProgress;
+	}
+
+	private static class OldFrontierAttack implements Serializable {
+		private OldMapNode node;
+		private int totalDanger;
+		private double dangerSoFar;
+	}
+
+	private static class OldSortie implements Serializable {
+		private OldMapNode location;
+		private OldStronghold target;
+		private int distanceToTarget;
+		private int casaultyCount;
+		private double victoryProgress;
+		private double nextCasaultyProgress;
+	}
+
+	// ========================================
+
+	private static class LegacyInputStream extends ObjectInputStream {
+		// Reads the old classes as their stand-ins. Each class description in the stream is swapped for its
+		// stand-in's, which has the same fields, so the data is read the same way but never checked against the
+		// current classes (which is where deserializing old saves fails, since none of them pinned a serialVersionUID).
+
+		private LegacyInputStream(InputStream is) throws IOException {
+			super(is);
+		}
+
+		protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+			ObjectStreamClass desc = super.readClassDescriptor();
+			Class<?> standIn = STAND_INS.get(desc.getName());
+			return standIn == null ? desc : ObjectStreamClass.lookup(standIn);
+		}
+	}
+
+	// ========================================
+
+	static GameInstance read(InputStream is) throws IOException {
+		OldGameInstance old;
+		try {
+			old = (OldGameInstance)new LegacyInputStream(is).readObject();
+		}
+		catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException("Could not load a game saved by an older version", e);
+		}
+		LegacySaveReader reader = new LegacySaveReader(old.state.map);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		reader.writeGame(out, old);
+		out.flush();
+		return SaveGameReader.readGame(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), reader.map, CONVERTED_VERSION);
+	}
+
+	// ========================================
+
+	private LegacySaveReader(OldMap old) {
+		// the map is rebuilt directly; node ids come from the same preorder walk as always
+		nodes = new IdentityHashMap<OldMapNode, MapNode>();
+		map = new Map();
+		map.setRootNode(copyNode(old.root));
+		map.makeNodeList();
+		for (OldMapNode n: old.peddlerLocations) {
+			map.addPeddlerLocation(nodes.get(n));
+		}
+		for (OldMapNode n: old.intermediateStrongholdLocations) {
+			map.addStrongholdLocation(nodes.get(n));
+		}
+		for (OldMapNode n: old.arableLand) {
+			map.addArableLand(nodes.get(n));
+		}
+		for (OldMapNode n: old.goldVeins) {
+			map.addGoldVein(nodes.get(n));
+		}
+	}
+
+	private MapNode copyNode(OldMapNode old) {
+		MapNode node = new MapNode(old.x, old.y);
+		nodes.put(old, node);
+		for (OldMapNode child: old.children) {
+			node.addChild(copyNode(child));
+		}
+		return node;
+	}
+
+	// ========================================
+
+	private void writeGame(DataOutputStream out, OldGameInstance game) throws IOException {
+		// the same layout as SaveGameWriter.writeGame and GameState.writeState, as of CONVERTED_VERSION
+		OldGameState old = game.state;
+		long seed = GameRandom.newSeed(); // old games had no seed
+		out.writeLong(seed);
+		out.writeLong(new GameRandom(seed).split().getState());
+		Double dir = game.monarchMovementDirection == null ? new Double(0, 0) : game.monarchMovementDirection;
+		out.writeDouble(dir.getX());
+		out.writeDouble(dir.getY());
+
+		out.writeByte((old.difficulty == null ? DifficultyLevel.getDefault() : old.difficulty).ordinal());
+		out.writeInt(old.dayCounter);
+		out.writeBoolean(old.isDaytime);
+		out.writeDouble(old.dayNightTime);
+		out.writeInt(old.monarchGold);
+		out.writeDouble(old.dangerLevel);
+		out.writeBoolean(old.isGameOver);
+		out.writeBoolean(old.gameResult);
+		out.writeBoolean(old.monarchLocationNode != null);
+		if (old.monarchLocationNode != null) {
+			writeNode(out, old.monarchLocationNode);
+		}
+		else {
+			writeNode(out, old.monarchLocationEdge.nodeA);
+			writeNode(out, old.monarchLocationEdge.nodeB);
+			out.writeDouble(old.monarchLocation.getX());
+			out.writeDouble(old.monarchLocation.getY());
+		}
+		SaveGameWriter.writeBitSet(out, toBitSet(old.exploredNodes));
+		SaveGameWriter.writeBitSet(out, toBitSet(old.humanNodes));
+		BitSet captured = new BitSet(map.getNodeCount());
+		for (OldMapNode n: old.capturedThisTurn) {
+			captured.set(nodes.get(n).getId());
+		}
+		SaveGameWriter.writeBitSet(out, captured);
+		HashMap<MapNode, Integer> goldVeins = byNewNode(old.goldVeins);
+		for (MapNode n: map.getGoldVeins()) {
+			Integer amount = goldVeins.get(n);
+			out.writeInt(amount == null ? 0 : amount.intValue());
+		}
+
+		HashMap<MapNode, OldPopulation> populations = byNewNode(old.populations);
+		int numPopulated = 0;
+		for (OldPopulation p: populations.values()) {
+			if (toPopulation(p).getTotal() != 0) {
+				numPopulated++;
+			}
+		}
+		SaveGameWriter.writeVarInt(out, numPopulated);
+		int lastId = 0;
+		for (MapNode n: map.getNodeList()) {
+			OldPopulation p = populations.get(n);
+			if (p != null && toPopulation(p).getTotal() != 0) {
+				SaveGameWriter.writeVarInt(out, n.getId() - lastId);
+				SaveGameWriter.writePopulation(out, toPopulation(p));
+				lastId = n.getId();
+			}
+		}
+		SaveGameWriter.writePopulation(out, toPopulation(old.retinue));
+		SaveGameWriter.writePopulation(out, toPopulation(old.totalKingdomPopulation));
+		out.writeBoolean(old.specialRetinue != null);
+		if (old.specialRetinue != null) {
+			out.writeUTF(old.specialRetinueName);
+			SaveGameWriter.writePopulation(out, toPopulation(old.specialRetinue));
+		}
+
+		// records, in node order since the old maps had none:
+		HashMap<MapNode, OldSettlement> settlements = byNewNode(old.settlements);
+		SaveGameWriter.writeVarInt(out, settlements.size());
+		for (MapNode n: map.getNodeList()) {
+			OldSettlement s = settlements.get(n);
+			if (s != null) {
+				SaveGameWriter.writeVarInt(out, n.getId());
+				writeSettlement(out, s);
+			}
+		}
+		HashMap<MapNode, OldWall> walls = byNewNode(old.walls);
+		SaveGameWriter.writeVarInt(out, walls.size());
+		for (MapNode n: map.getNodeList()) {
+			OldWall w = walls.get(n);
+			if (w != null) {
+				SaveGameWriter.writeVarInt(out, n.getId());
+				out.writeByte(w.level);
+				out.writeBoolean(w.isBuildingSite);
+				out.writeBoolean(w.isUpgrading);
+				out.writeDouble(w.constructionProgress);
+			}
+		}
+		HashMap<MapNode, OldStronghold> strongholds = byNewNode(old.strongholds);
+		IdentityHashMap<OldStronghold, MapNode> strongholdLocations = new IdentityHashMap<OldStronghold, MapNode>();
+		SaveGameWriter.writeVarInt(out, strongholds.size());
+		for (MapNode n: map.getNodeList()) {
+			if (strongholds.get(n) != null) {
+				strongholdLocations.put(strongholds.get(n), n);
+				SaveGameWriter.writeVarInt(out, n.getId());
+			}
+		}
+		SaveGameWriter.writeVarInt(out, old.sorties.size());
+		for (OldSortie s: old.sorties) {
+			writeNode(out, s.location);
+			SaveGameWriter.writeVarInt(out, strongholdLocations.get(s.target).getId());
+			out.writeInt(s.distanceToTarget);
+			out.writeInt(s.casaultyCount);
+			out.writeDouble(s.victoryProgress);
+			out.writeDouble(s.nextCasaultyProgress);
+		}
+		SaveGameWriter.writeVarInt(out, old.attacks.size());
+		for (OldFrontierAttack a: old.attacks) {
+			writeNode(out, a.node);
+			out.writeInt(a.totalDanger);
+			out.writeDouble(a.dangerSoFar);
+		}
+	}
+
+	// ========================================
+
+	private void writeSettlement(DataOutputStream out, OldSettlement s) throws IOException {
+		// the type tag, then the layout of Settlement.writeState and each type's writeExtraState
+		if (s instanceof OldCapital) {
+			out.writeByte(SaveGameWriter.CAPITAL);
+		}
+		else if (s instanceof OldCity) {
+			out.writeByte(SaveGameWriter.CITY);
+		}
+		else if (s instanceof OldFarm) {
+			out.writeByte(SaveGameWriter.FARM);
+		}
+		else if (s instanceof OldGoldMine) {
+			out.writeByte(SaveGameWriter.GOLD_MINE);
+		}
+		else {
+			out.writeByte(SaveGameWriter.PEDDLER);
+		}
+		out.writeByte(s.level);
+		out.writeInt(s.gold);
+		out.writeBoolean(s.isBuildingSite);
+		out.writeDouble(s.constructionProgress);
+		out.writeBoolean(s.isUpgrading);
+		if (s instanceof OldCapital) {
+			out.writeDouble(((OldCapital)s).nextSubjectProgress);
+		}
+		else if (s instanceof OldCity) {
+			out.writeDouble(((OldCity)s).nextSubjectProgress);
+		}
+		else if (s instanceof OldFarm) {
+			ArrayList<java.lang.Double> crops = ((OldFarm)s).cropProgress;
+			out.writeByte(crops.size());
+			for (java.lang.Double d: crops) {
+				out.writeDouble(d.doubleValue());
+			}
+		}
+		else if (s instanceof OldPeddler) {
+			out.writeDouble(((OldPeddler)s).progressTowardsNextGold);
+		}
+	}
+
+	// ========================================
+
+	private void writeNode(DataOutputStream out, OldMapNode node) throws IOException {
+		SaveGameWriter.writeVarInt(out, nodes.get(node).getId());
+	}
+
+	private BitSet toBitSet(HashMap<OldMapNode, Boolean> flags) {
+		BitSet bits = new BitSet(map.getNodeCount());
+		for (OldMapNode n: flags.keySet()) {
+			if (Boolean.TRUE.equals(flags.get(n))) {
+				bits.set(nodes.get(n).getId());
+			}
+		}
+		return bits;
+	}
+
+	private <T> HashMap<MapNode, T> byNewNode(HashMap<OldMapNode, T> old) {
+		HashMap<MapNode, T> result = new HashMap<MapNode, T>();
+		for (OldMapNode n: old.keySet()) {
+			result.put(nodes.get(n), old.get(n));
+		}
+		return result;
+	}
+
+	private static Population toPopulation(OldPopulation old) {
+		Population p = new Population();
+		for (SubjectType st: old.subjects.keySet()) {
+			p.addSubjects(st, old.subjects.get(st).intValue());
+		}
+		return p;
+	}
+
+
+}
\ No newline at end of file
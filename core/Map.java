@@ -3,6 +3,8 @@
 package core;
 import java.awt.geom.Point2D.Double;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 
 
@@ -10,16 +12,18 @@ public class Map implements Serializable {
 
 	private static final Map defaultMap;
 	private MapNode root;
-	private LinkedList<MapNode> nodeList; // list of all nodes w/o tree structure for easy iteration
+	private ArrayList<MapNode> nodeList; // list of all nodes w/o tree structure for easy iteration, indexed by node id
 	private LinkedList<MapNode> intermediateStrongholdLocations; 
 	private LinkedList<MapNode> peddlerLocations;
 	private LinkedList<MapNode> arableLand;
 	private LinkedList<MapNode> goldVeins;
+	private HashMap<Long, MapNode> locationIndex; // nodes keyed by the integer grid cell they sit in
+	private boolean hasLocationCollisions; // true if two nodes ever shared a grid cell, which means the index is incomplete
 
 
 	static {
 		defaultMap = new Map();
-		defaultMap.root = new MapNode(0.0, 0.0);
+		defaultMap.setRootNode(new MapNode(0.0, 0.0));
 		MapNode node1 = new MapNode(-1.0, 0);
 		defaultMap.root.addChild(node1);
 		MapNode node2 = new MapNode(-2.0, 0);
@@ -217,11 +221,13 @@ public class Map implements Serializable {
 	// =========================================
 
 	public void makeNodeList() {
-		nodeList = new LinkedList<MapNode>();
+		// also assigns each node its id, which is its index in this list
+		nodeList = new ArrayList<MapNode>();
 		addToNodeList(root);
 	}
 
 	private void addToNodeList(MapNode n) {
+		n.setId(nodeList.size());
 		nodeList.add(n);
 		for (MapNode c: n.getChildren()) {
 			addToNodeList(c);
@@ -258,8 +264,72 @@ public class Map implements Serializable {
 
 	// =========================================
 
+	public static int getPathLength(MapNode a, MapNode b) {
+		// how many edges there are between two nodes (unlike getDistance, they don't have to be on the same lane)
+		int depthA = a.getDistanceFromRoot();
+		int depthB = b.getDistanceFromRoot();
+		int length = 0;
+		for (; depthA > depthB; depthA--) {
+			a = a.getParent();
+			length++;
+		}
+		for (; depthB > depthA; depthB--) {
+			b = b.getParent();
+			length++;
+		}
+		while (a != b) {
+			a = a.getParent();
+			b = b.getParent();
+			length += 2;
+		}
+		return length;
+	}
+
+	// =========================================
+
+	public static MapNode findNextStepTowards(MapNode from, MapNode to) {
+		// the neighbor of from that's on the way to the other node (there is only one way, since the map is a tree),
+		// or null if they're the same node
+		if (from == to) {
+			return null;
+		}
+		for (MapNode n = to; n.getParent() != null; n = n.getParent()) {
+			if (n.getParent() == from) {
+				return n;
+			}
+		}
+		return from.getParent();
+	}
+
+	// =========================================
+
+	public static Double findDirectionTowards(MapNode from, MapNode neighbor) {
+		// a direction for the monarch to move in to get from a node to one of its neighbors (see findNeighborInDirection)
+		double dx = Math.abs(neighbor.getX() - from.getX()) < 1e-6 ? 0 : Math.signum(neighbor.getX() - from.getX());
+		double dy = Math.abs(neighbor.getY() - from.getY()) < 1e-6 ? 0 : Math.signum(neighbor.getY() - from.getY());
+		Double[] candidates = new Double[]{new Double(dx, dy), new Double(dx, 0), new Double(0, dy)};
+		for (Double dir: candidates) {
+			if ((dir.getX() != 0 || dir.getY() != 0) && findNeighborInDirection(from, dir) == neighbor) {
+				return dir;
+			}
+		}
+		return null;
+	}
+
+	// =========================================
+
 	public MapNode findNodeAtLocation(double x, double y) {
 		// NOTE that this cannot rely on the node list having been built
+		if (locationIndex != null) {
+			MapNode node = locationIndex.get(getGridKey(x, y));
+			if (node != null && node.getX() == x && node.getY() == y) {
+				return node;
+			}
+			if (!hasLocationCollisions) {
+				return null;
+			}
+		}
+		// fall back on searching the whole tree:
 		return findNodeAtLocation(root, x, y);
 	}
 
@@ -277,6 +347,30 @@ public class Map implements Serializable {
 		return null;
 	}
 
+	// =========================================
+
+	public void addToLocationIndex(MapNode node) {
+		// Called when a node (and any subtree below it) is attached to this map
+		node.setMap(this);
+		Long key = getGridKey(node.getX(), node.getY());
+		if (locationIndex.get(key) == null) {
+			locationIndex.put(key, node);
+		}
+		else {
+			hasLocationCollisions = true;
+		}
+		for (MapNode child: node.getChildren()) {
+			addToLocationIndex(child);
+		}
+	}
+
+	private static long getGridKey(double x, double y) {
+		// MapGen places nodes at unit offsets, so rounding gives each node its own cell. The packed
+		// coordinates are multiplied by an odd constant (which keeps keys unique) so that Long.hashCode
+		// doesn't collapse to x ^ y and pile every diagonal into one bucket.
+		return ((Math.round(x) << 32) | (Math.round(y) & 0xffffffffL)) * 0x9e3779b97f4a7c15L;
+	}
+
 	// =============== ACCESSORS ================
 
 	public void addArableLand(MapNode node) {
@@ -303,7 +397,15 @@ public class Map implements Serializable {
 		return goldVeins;
 	}
 
-	public LinkedList<MapNode> getNodeList() {
+	public MapNode getNode(int id) {
+		return nodeList.get(id);
+	}
+
+	public int getNodeCount() {
+		return nodeList.size();
+	}
+
+	public ArrayList<MapNode> getNodeList() {
 		return nodeList;
 	}
 
@@ -321,6 +423,9 @@ public class Map implements Serializable {
 
 	public void setRootNode(MapNode node) {
 		root = node;
+		locationIndex = new HashMap<Long, MapNode>();
+		hasLocationCollisions = false;
+		addToLocationIndex(node);
 	}
 
 
@@ -2,6 +2,7 @@
 
 package core;
 import java.awt.geom.Point2D.Double;
+import java.util.HashSet;
 import java.util.LinkedList;
 
 
@@ -26,13 +27,28 @@ public class MapGen {
 
 
 	public static Map createMap() {
+		return createMap(GameRandom.newSeed());
+	}
+
+	public static Map createMap(long seed) {
+		// the same seed always produces the same map
+		return createMap(seed, MIN_LANE_DEPTH, MAX_LANE_DEPTH);
+	}
+
+	public static Map createMap(int minLaneDepth, int maxLaneDepth) {
+		return createMap(GameRandom.newSeed(), minLaneDepth, maxLaneDepth);
+	}
+
+	public static Map createMap(long seed, int minLaneDepth, int maxLaneDepth) {
+		// lane depth limits can be raised to build much larger maps (e.g. for scaling tests)
+		GameRandom rand = new GameRandom(seed);
 		Map map = new Map();
 		MapNode root = new MapNode(0, 0);
 		map.setRootNode(root);
 		
-		int rootLanes = calculateNumRootLanes();
+		int rootLanes = calculateNumRootLanes(rand);
 		LinkedList<MapNode> creationQueue = new LinkedList<MapNode>(); // list of nodes that still need their descendants worked out
-		LinkedList<Double> rootLaneDirs = shuffle(getCardinalDirections());
+		LinkedList<Double> rootLaneDirs = shuffle(getCardinalDirections(), rand);
 		for (int i = 0; i < rootLanes; i++) {
 			MapNode child = new MapNode(rootLaneDirs.get(i).getX(), rootLaneDirs.get(i).getY());
 			root.addChild(child);
@@ -41,35 +57,35 @@ public class MapGen {
 
 		// start recursing on creationQueue:
 		while (creationQueue.size() > 0) {
-			generateFromNode(map, creationQueue.removeFirst(), creationQueue);
+			generateFromNode(map, creationQueue.removeFirst(), creationQueue, minLaneDepth, maxLaneDepth, rand);
 		}
 		map.makeNodeList(); // map is now fully built
 
 		// put some stuff on it:
-		addPeddlers(map);
-		addStrongholds(map);
-		addFarmsAndGoldVeins(map);
+		addPeddlers(map, rand);
+		addStrongholds(map, rand);
+		addFarmsAndGoldVeins(map, rand);
 
 		return map;
 	}
 
 	// ========================================
 
-	private static void generateFromNode(Map map, MapNode node, LinkedList<MapNode> queue) {
+	private static void generateFromNode(Map map, MapNode node, LinkedList<MapNode> queue, int minLaneDepth, int maxLaneDepth, GameRandom rand) {
 		// create children of this node and add them to the back of the queue
 		int depth = Map.getDistance(node, map.getRootNode());
 
 		// First, determine if this is a leaf:
-		if (depth >= MAX_LANE_DEPTH) {
+		if (depth >= maxLaneDepth) {
 			return;
 		}
-		else if (depth > MIN_LANE_DEPTH && Math.random() < LANE_END_CHANCE) {
+		else if (depth > minLaneDepth && rand.nextDouble() < LANE_END_CHANCE) {
 			return;
 		}
 
-		int numChildren = calculateNumChildrenForNode();
+		int numChildren = calculateNumChildrenForNode(rand);
 		for (int i = 0; i < numChildren; i++) {
-			Double loc = findLocationForChild(map, node); // looks for a valid location
+			Double loc = findLocationForChild(map, node, rand); // looks for a valid location
 			if (loc != null) {
 				MapNode child = new MapNode(loc.getX(), loc.getY());
 				node.addChild(child);
@@ -80,9 +96,9 @@ public class MapGen {
 
 	// ========================================
 
-	private static Double findLocationForChild(Map map, MapNode node) {
+	private static Double findLocationForChild(Map map, MapNode node, GameRandom rand) {
 		// Determine where a child can/should be, return null if there is no space
-		LinkedList<Double> directions = shuffle(getCardinalDirections());
+		LinkedList<Double> directions = shuffle(getCardinalDirections(), rand);
 
 		// remove direction that parent is in:
 		Double parentDir = new Double(node.getParent().getX() - node.getX(), node.getParent().getY() - node.getY());
@@ -106,7 +122,7 @@ public class MapGen {
 		}
 
 		// determine priority order of remaining dirs, based on corner chance
-		if (Math.random() < CORNER_CHANCE) {
+		if (rand.nextDouble() < CORNER_CHANCE) {
 			// try to turn
 			directions.remove(straightDir);
 			directions.add(straightDir); // this moves straight direction to the end of pri queue
@@ -138,9 +154,9 @@ public class MapGen {
 
 	// ========================================
 
-	private static int calculateNumRootLanes() {
+	private static int calculateNumRootLanes(GameRandom rand) {
 		// Decide how many lanes should radiate from root
-		double r = Math.random();
+		double r = rand.nextDouble();
 		if (r < 0.7) {
 			return 2;
 		}
@@ -165,9 +181,9 @@ public class MapGen {
 
 	// ========================================
 
-	private static LinkedList<Double> shuffle(LinkedList<Double> list) {
+	private static LinkedList<Double> shuffle(LinkedList<Double> list, GameRandom rand) {
 		for (int i = 0; i < list.size() * 2; i++) {
-			int r = (int)(Math.random() * list.size());
+			int r = (int)(rand.nextDouble() * list.size());
 			list.add(list.remove(r));
 		}
 		return list;
@@ -175,12 +191,12 @@ public class MapGen {
 
 	// ========================================
 
-	private static int calculateNumChildrenForNode() {
+	private static int calculateNumChildrenForNode(GameRandom rand) {
 		// How many children should some random node try to have, assuming there is space for them:
-		if (Math.random() < DOUBLE_FORK_CHANCE) {
+		if (rand.nextDouble() < DOUBLE_FORK_CHANCE) {
 			return 3;
 		}
-		if (Math.random() < FORK_CHANCE) {
+		if (rand.nextDouble() < FORK_CHANCE) {
 			return 2;
 		}
 		return 1;
@@ -188,8 +204,8 @@ public class MapGen {
 
 	// ========================================
 
-	private static void addPeddlers(Map map) {
-		int numPeddlers = 3 + (int)(Math.random() * 3);
+	private static void addPeddlers(Map map, GameRandom rand) {
+		int numPeddlers = 3 + (int)(rand.nextDouble() * 3);
 		int numRootLanes = map.getRootNode().getChildren().size();
 		int i = 0;
 		// Apportion the peddlers evenly along the lanes:
@@ -199,7 +215,7 @@ public class MapGen {
 				n++;
 			}
 			if (n > 0) {
-				placePeddlersOnLane(map, rootChild, n);
+				placePeddlersOnLane(map, rootChild, n, rand);
 			}
 			i++;
 		}
@@ -207,7 +223,7 @@ public class MapGen {
 
 	// ========================================
 
-	private static void placePeddlersOnLane(Map map, MapNode node, int numPeddlers) {
+	private static void placePeddlersOnLane(Map map, MapNode node, int numPeddlers, GameRandom rand) {
 		// If we've hit a leaf, stop.
 		if (node.isLeaf()) {
 			return;
@@ -215,7 +231,7 @@ public class MapGen {
 		// First, determine if a peddler should go at this node:
 		int depth = Map.getDistance(node, map.getRootNode());
 		if (depth >= MIN_PEDDLER_DEPTH) {
-			if (depth >= MAX_PEDDLER_DEPTH || Math.random() < PEDDLER_CHANCE) {
+			if (depth >= MAX_PEDDLER_DEPTH || rand.nextDouble() < PEDDLER_CHANCE) {
 				map.addPeddlerLocation(node);
 				numPeddlers--;
 				if (numPeddlers <= 0) {
@@ -233,7 +249,7 @@ public class MapGen {
 				n++;
 			}
 			if (n > 0) {
-				placePeddlersOnLane(map, child, n);
+				placePeddlersOnLane(map, child, n, rand);
 			}
 			i++;
 		}
@@ -241,34 +257,40 @@ public class MapGen {
 
 	// ========================================
 
-	private static void addStrongholds(Map map) {
+	private static void addStrongholds(Map map, GameRandom rand) {
 		// places intermediate strongholds on the map
 		LinkedList<MapNode> leaves = map.getLeaves();
-		int numStrongholds = (int)Math.round(leaves.size() * (0.25 +Math.random() * 0.5));
-		for (int i = 0; i < numStrongholds; i++) {
-			placeStrongholdOnLane(map, leaves.get(i).getParent());
+		int numStrongholds = (int)Math.round(leaves.size() * (0.25 +rand.nextDouble() * 0.5));
+		for (MapNode leaf: leaves) {
+			if (numStrongholds-- <= 0) {
+				break;
+			}
+			placeStrongholdOnLane(map, leaf.getParent(), rand);
 		}
 	}
 
 	// ========================================
 
-	private static void placeStrongholdOnLane(Map map, MapNode node) {
+	private static void placeStrongholdOnLane(Map map, MapNode node, GameRandom rand) {
 		// put an intermeidate stronghold at this node or among its ancestors
 		int depth = map.getDistance(node, map.getRootNode());
-		if ((depth <= MIN_STRONGHOLD_DEPTH || Math.random() < STRONGHOLD_CHANCE) && !map.getPeddlerLocations().contains(node)) {
+		if ((depth <= MIN_STRONGHOLD_DEPTH || rand.nextDouble() < STRONGHOLD_CHANCE) && !map.getPeddlerLocations().contains(node)) {
 			map.addStrongholdLocation(node);
 		}
 		else {
-			placeStrongholdOnLane(map, node.getParent());
+			placeStrongholdOnLane(map, node.getParent(), rand);
 		}
 	}
 
 	// ========================================
 
-	private static void addFarmsAndGoldVeins(Map map) {
+	private static void addFarmsAndGoldVeins(Map map, GameRandom rand) {
 		// Both are placed at the same time b/c they fill similar roles
+		HashSet<MapNode> occupied = new HashSet<MapNode>(); // nodes that already have a stronghold or peddler
+		occupied.addAll(map.getStrongholdLocations());
+		occupied.addAll(map.getPeddlerLocations());
 		for (MapNode child: map.getRootNode().getChildren()) {
-			addFarmsAndGoldVeinsToLane(map, child, 1);
+			addFarmsAndGoldVeinsToLane(map, child, 1, occupied, rand);
 		}
 
 		// make sure there is at least one farm or gold vein within 4 nodes of the root:
@@ -291,8 +313,8 @@ public class MapGen {
 			}
 		}
 		if (!foundOne) {
-			int r = (int)(Math.random() * nearbyNodes.size());
-			if (Math.random() < ECON_PERCENTAGE_FARMS) {
+			int r = (int)(rand.nextDouble() * nearbyNodes.size());
+			if (rand.nextDouble() < ECON_PERCENTAGE_FARMS) {
 				map.addArableLand(nearbyNodes.get(r));
 			}
 			else {
@@ -303,13 +325,13 @@ public class MapGen {
 
 	// ========================================
 
-	private static void addFarmsAndGoldVeinsToLane(Map map, MapNode node, int depthFromLastEcon) {
+	private static void addFarmsAndGoldVeinsToLane(Map map, MapNode node, int depthFromLastEcon, HashSet<MapNode> occupied, GameRandom rand) {
 		// First, determine if an econ resources will be placed here:
 		boolean placed = false;
-		if (node.getChildren().size() > 0 && !map.getStrongholdLocations().contains(node) && !map.getPeddlerLocations().contains(node)) {
+		if (node.getChildren().size() > 0 && !occupied.contains(node)) {
 			if (depthFromLastEcon >= MAX_ECON_SPACING) {
 				placed = true;
-				if (Math.random() < ECON_PERCENTAGE_FARMS) {
+				if (rand.nextDouble() < ECON_PERCENTAGE_FARMS) {
 					map.addArableLand(node);
 				}
 				else {
@@ -317,9 +339,9 @@ public class MapGen {
 				}
 			}
 			else if (depthFromLastEcon > MIN_ECON_SPACING) {
-				if (Math.random() <= ECON_FREQUENCY) {
+				if (rand.nextDouble() <= ECON_FREQUENCY) {
 					placed = true;
-					if (Math.random() < ECON_PERCENTAGE_FARMS) {
+					if (rand.nextDouble() < ECON_PERCENTAGE_FARMS) {
 						map.addArableLand(node);
 					}
 					else {
@@ -331,7 +353,7 @@ public class MapGen {
 
 		// Now recurse.
 		for (MapNode child: node.getChildren()) {
-			addFarmsAndGoldVeinsToLane(map, child, placed ? 1 : depthFromLastEcon + 1);
+			addFarmsAndGoldVeinsToLane(map, child, placed ? 1 : depthFromLastEcon + 1, occupied, rand);
 		}
 	}
 
@@ -7,7 +7,9 @@ import java.util.LinkedList;
 
 public class MapNode implements Serializable {
 
+	private Map map; // set once the node is attached to a map's tree
 	private MapNode parent; // null only for the root
+	private int id; // dense index assigned once the map is built, used to key per-node state
 	private double x;
 	private double y; // coordinates in map space
 	private LinkedList<MapNode> children;
@@ -24,6 +26,10 @@ public class MapNode implements Serializable {
 	public void addChild(MapNode node) {
 		node.parent = this;
 		children.add(node);
+		if (map != null) {
+			// keep the map's location index up to date:
+			map.addToLocationIndex(node);
+		}
 	}
 
 	// ===============================
@@ -61,6 +67,10 @@ public class MapNode implements Serializable {
 		return children;
 	}
 
+	public int getId() {
+		return id;
+	}
+
 	public MapNode getParent() {
 		return parent;
 	}
@@ -73,5 +83,13 @@ public class MapNode implements Serializable {
 		return y;
 	}
 
+	public void setId(int i) {
+		id = i;
+	}
+
+	public void setMap(Map m) {
+		map = m;
+	}
+
 
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 // NPC settlements that provide early game gold
 
 package core;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
 
@@ -8,6 +11,7 @@ public class Peddler extends Settlement implements Serializable {
 
 	private static final double GOLD_PER_DAY = 4.2;
 	private double progressTowardsNextGold;
+	private double goldRate; // latched, per day
 
 
 	public Peddler() {
@@ -16,17 +20,29 @@ public class Peddler extends Settlement implements Serializable {
 
 	// ====================================
 
-	protected void update(GameInstance instance, double progress) {
+	protected void advanceProduction(double elapsed) {
+		progressTowardsNextGold += elapsed * goldRate;
+	}
+
+	protected void fireProductionEvents(GameInstance instance) {
 		// generate money:
-		if (instance.isDaytime() && gold < getMaxGold()) {
-			progressTowardsNextGold += progress * GOLD_PER_DAY;
-			if (progressTowardsNextGold >= 1.0) {
-				gold++;
-				progressTowardsNextGold = 0.0;
-			}
+		if (gold < getMaxGold() && progressTowardsNextGold >= 1.0 - EPSILON) {
+			gold++;
+			progressTowardsNextGold = 0.0;
 		}
 	}
 
+	protected void latchProductionRates(GameInstance instance) {
+		// stops while the treasury is full
+		goldRate = gold < getMaxGold() ? GOLD_PER_DAY : 0.0;
+	}
+
+	protected double getTimeToNextProductionEvent() {
+		return EventScheduler.getTimeToThreshold(progressTowardsNextGold, goldRate);
+	}
+
+	// ====================================
+
 	public void onSubjectAdded(SubjectType s, GameInstance instance) {
 		// do nothing
 	}
@@ -43,6 +59,16 @@ public class Peddler extends Settlement implements Serializable {
 		// do nothing
 	}
 
+	// ====================================
+
+	protected void writeExtraState(DataOutput out) throws IOException {
+		out.writeDouble(progressTowardsNextGold);
+	}
+
+	protected void readExtraState(DataInput in) throws IOException {
+		progressTowardsNextGold = in.readDouble();
+	}
+
 	// ======= ACCESSORS ==================
 
 	public boolean allowsGoldDeposits() {
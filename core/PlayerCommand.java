@@ -0,0 +1,192 @@
+// An action the player has asked for. The GUI queues these on the game instance and they are applied
+// on the engine thread at the start of the next update, so the GUI never changes the game state directly.
+
+package core;
+import java.awt.geom.Point2D.Double;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+public class PlayerCommand {
+
+	private Type type;
+	private int nodeId; // for commands aimed at a particular node, -1 otherwise
+	private int amount; // gold amount for withdrawals and deposits
+	private SubjectType subjectType;
+	private double dx; // monarch movement direction
+	private double dy;
+
+
+	public enum Type {
+		START_MOVING,
+		STOP_MOVING,
+		CAPTURE_NODE,
+		LAUNCH_SORTIE,
+		CANCEL_SORTIE,
+		WITHDRAW_GOLD,
+		DEPOSIT_GOLD,
+		RECRUIT_SUBJECT,
+		LEAVE_SUBJECT,
+		LEAVE_SPECIAL_RETINUE,
+		EQUIP_SUBJECT,
+		UPGRADE_SETTLEMENT,
+		BUILD_CITY,
+		BUILD_FARM,
+		BUILD_OR_UPGRADE_WALL,
+		BUILD_GOLD_MINE
+	}
+
+
+	public PlayerCommand(Type t) {
+		this(t, -1, 0, null, 0.0, 0.0);
+	}
+
+	public PlayerCommand(Type t, MapNode node) {
+		this(t, node.getId(), 0, null, 0.0, 0.0);
+	}
+
+	public PlayerCommand(Type t, int n) {
+		this(t, -1, n, null, 0.0, 0.0);
+	}
+
+	public PlayerCommand(Type t, SubjectType s) {
+		this(t, -1, 0, s, 0.0, 0.0);
+	}
+
+	public PlayerCommand(Type t, Double direction) {
+		this(t, -1, 0, null, direction.getX(), direction.getY());
+	}
+
+	private PlayerCommand(Type t, int id, int n, SubjectType s, double x, double y) {
+		type = t;
+		nodeId = id;
+		amount = n;
+		subjectType = s;
+		dx = x;
+		dy = y;
+	}
+
+	// ====================================
+
+	public void apply(GameInstance instance) {
+		// the attempt methods all re-check that the action is still valid, since the game may have moved on
+		// since the player saw the frame they acted on
+		MapNode node = nodeId >= 0 ? instance.getMap().getNode(nodeId) : null;
+		switch (type) {
+			case START_MOVING:
+				instance.startMonarchMovementInDirection(new Double(dx, dy));
+				break;
+			case STOP_MOVING:
+				instance.stopMonarchMovementInDirection(new Double(dx, dy));
+				break;
+			case CAPTURE_NODE:
+				instance.attemptCaptureNode(node);
+				break;
+			case LAUNCH_SORTIE:
+				instance.attemptLaunchSortie();
+				break;
+			case CANCEL_SORTIE:
+				if (instance.getSortieAt(node) != null) {
+					instance.cancelSortie(instance.getSortieAt(node));
+				}
+				break;
+			case WITHDRAW_GOLD:
+				instance.attemptGoldWithdrawal(amount);
+				break;
+			case DEPOSIT_GOLD:
+				instance.attemptGoldDeposit(amount);
+				break;
+			case RECRUIT_SUBJECT:
+				instance.attemptRecruitSubject(subjectType);
+				break;
+			case LEAVE_SUBJECT:
+				instance.attemptLeaveSubject(subjectType);
+				break;
+			case LEAVE_SPECIAL_RETINUE:
+				instance.attemptLeaveSpecialRetinue();
+				break;
+			case EQUIP_SUBJECT:
+				instance.attemptEquipSubject(subjectType);
+				break;
+			case UPGRADE_SETTLEMENT:
+				instance.attemptUpgradeSettlement();
+				break;
+			case BUILD_CITY:
+				instance.attemptBuildNewCity(node);
+				break;
+			case BUILD_FARM:
+				instance.attemptBuildNewFarm(node);
+				break;
+			case BUILD_OR_UPGRADE_WALL:
+				instance.attemptBuildOrUpgradeWall();
+				break;
+			case BUILD_GOLD_MINE:
+				instance.attemptBuildGoldMine();
+				break;
+		}
+	}
+
+	// ====================================
+
+	void write(DataOutput out) throws IOException {
+		// used by CommandLogWriter: the type, a mask of which other fields are set, then just those fields
+		boolean isMovement = dx != 0.0 || dy != 0.0;
+		if (isMovement && (dx != (byte)dx || dy != (byte)dy)) {
+			throw new IOException("Can't log a movement direction that isn't made of whole steps: " + dx + ", " + dy);
+		}
+		out.writeByte(type.ordinal());
+		out.writeByte((nodeId >= 0 ? 1 : 0) | (amount != 0 ? 2 : 0) | (subjectType != null ? 4 : 0) | (isMovement ? 8 : 0));
+		if (nodeId >= 0) {
+			SaveGameWriter.writeVarInt(out, nodeId);
+		}
+		if (amount != 0) {
+			SaveGameWriter.writeVarInt(out, amount);
+		}
+		if (subjectType != null) {
+			out.writeByte(subjectType.ordinal());
+		}
+		if (isMovement) {
+			out.writeByte((int)dx);
+			out.writeByte((int)dy);
+		}
+	}
+
+	static PlayerCommand read(DataInput in) throws IOException {
+		int t = in.readUnsignedByte();
+		if (t >= Type.values().length) {
+			throw new IOException("Unknown command type in log: " + t);
+		}
+		int fields = in.readUnsignedByte();
+		int id = (fields & 1) != 0 ? SaveGameReader.readVarInt(in) : -1;
+		int n = (fields & 2) != 0 ? SaveGameReader.readVarInt(in) : 0;
+		SubjectType s = (fields & 4) != 0 ? SubjectType.values()[in.readUnsignedByte()] : null;
+		double x = 0.0;
+		double y = 0.0;
+		if ((fields & 8) != 0) {
+			x = in.readByte();
+			y = in.readByte();
+		}
+		return new PlayerCommand(Type.values()[t], id, n, s, x, y);
+	}
+
+	// ========== ACCESSORS =============
+
+	public int getAmount() {
+		return amount;
+	}
+
+	public int getNodeId() {
+		return nodeId;
+	}
+
+	public SubjectType getSubjectType() {
+		return subjectType;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+// An automated player. Rather than being asked every tick, it is asked what to do at decision points (see
+// DecisionPoint), and answers with the same commands the GUI submits, so anything it can do a player can too.
+
+package core;
+import java.util.List;
+
+
+public interface Policy {
+
+
+	public enum DecisionPoint {
+		GAME_STARTED,
+		ARRIVED, // the monarch has just reached a node
+		DAY_BEGAN,
+		NIGHT_BEGAN,
+		WAITING // nothing has happened since the last decision, but the monarch is at a node and things may have moved on
+	}
+
+
+	// The commands are applied in order at the start of the next update, each one re-checked against the game as
+	// it is by then. Returning none means waiting for the next decision point.
+	public List<PlayerCommand> decide(GameView game, DecisionPoint point);
+
+
+}
\ No newline at end of file
@@ -11,6 +11,7 @@ public enum PopGrowthModifier {
 	RED(Color.RED, 0.5, 1.0),
 	BLACK(Color.BLACK, 0.05, 1.2);
 
+	private static final PopGrowthModifier[] ordered = values(); // ascending by threshold
 
 	private Color color;
 	private double growthMod; // gets applied to growth rate
@@ -36,6 +37,16 @@ public enum PopGrowthModifier {
 		return mod;
 	}
 
+	// ============================================
+
+	public boolean appliesToRatio(double ratio) {
+		// true if the ratio falls between this modifier's threshold and the next one up
+		if (ratio <= housingThreshold) {
+			return false;
+		}
+		return ordinal() == ordered.length - 1 || ratio <= ordered[ordinal() + 1].housingThreshold;
+	}
+
 	// ============ ACCESSORS =====================
 
 	public Color getColor() {
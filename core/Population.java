@@ -1,21 +1,18 @@
-// Wrapper for hashmap with tracker for total population
+// Wrapper for per-type subject counts with tracker for total population
 
 package core;
 import java.io.Serializable;
-import java.util.HashMap;
 
 
 public class Population implements Serializable {
 
-	private HashMap<SubjectType, Integer> subjects;
+	private static final int NUM_TYPES = SubjectType.values().length;
+	private int[] subjects; // counts, indexed by subject type ordinal
 	private int total;
 
 
 	public Population() {
-		subjects = new HashMap<SubjectType, Integer>();
-		for (SubjectType s: SubjectType.values()) {
-			subjects.put(s, 0);
-		}
+		subjects = new int[NUM_TYPES];
 	}
 
 	// ====================================
@@ -25,10 +22,10 @@ public class Population implements Serializable {
 		if (instance.getPopCountAtNode(node) == 0) {
 			return null;
 		}
-		int r = (int)Math.ceil(Math.random() * instance.getPopCountAtNode(node));
+		int r = (int)(instance.getRandom().nextDouble() * instance.getPopCountAtNode(node));
 		for (SubjectType st: SubjectType.values()) {
 			int n = instance.getPopulationAtNode(node, st);
-			if (n != 0 && n <= r) {
+			if (r < n) {
 				return st;
 			}
 			r -= n;
@@ -40,21 +37,31 @@ public class Population implements Serializable {
 	// ====================================
 
 	public void addSubject(SubjectType st) {
-		subjects.put(st, subjects.get(st).intValue() + 1);
+		subjects[st.ordinal()]++;
 		total++;
 	}
 
+	public void addSubjects(SubjectType st, int n) {
+		subjects[st.ordinal()] += n;
+		total += n;
+	}
+
 	// ====================================
 
 	public void subtractSubject(SubjectType st) {
-		subjects.put(st, subjects.get(st).intValue() - 1);
+		subjects[st.ordinal()]--;
 		total--;
 	}
 
+	public void subtractSubjects(SubjectType st, int n) {
+		subjects[st.ordinal()] -= n;
+		total -= n;
+	}
+
 	// ====================================
 
 	public int getCount(SubjectType s) {
-		return subjects.get(s).intValue();
+		return subjects[s.ordinal()];
 	}
 
 	// ====================================
@@ -66,19 +73,19 @@ public class Population implements Serializable {
 	// ====================================
 
 	public void addAll(Population other) {
-		for (SubjectType st: SubjectType.values()) {
-			total += other.subjects.get(st).intValue();
-			subjects.put(st, subjects.get(st).intValue() + other.subjects.get(st).intValue());
+		for (int i = 0; i < NUM_TYPES; i++) {
+			subjects[i] += other.subjects[i];
 		}
+		total += other.total;
 	}
 
 	// ====================================
 
 	public void subtractAll(Population other) {
-		for (SubjectType st: SubjectType.values()) {
-			total -= other.subjects.get(st).intValue();
-			subjects.put(st, subjects.get(st).intValue() - other.subjects.get(st).intValue());
+		for (int i = 0; i < NUM_TYPES; i++) {
+			subjects[i] -= other.subjects[i];
 		}
+		total -= other.total;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+// Loads games written by SaveGameWriter.
+
+package core;
+import java.awt.geom.Point2D.Double;
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+
+
+public class SaveGameReader {
+
+	private static final int JAVA_SERIALIZATION_MAGIC = 0xACED; // how a stream from ObjectOutputStream starts
+
+
+	public static GameInstance read(InputStream is) throws IOException {
+		FlightEvents.LoadGameEvent event = new FlightEvents.LoadGameEvent();
+		event.begin();
+		GameInstance game = readSave(is);
+		event.end();
+		if (event.shouldCommit()) {
+			event.dayCount = game.getDayCount();
+			event.nodeCount = game.getMap().getNodeCount();
+			event.commit();
+		}
+		return game;
+	}
+
+	// ========================================
+
+	private static GameInstance readSave(InputStream is) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+		in.mark(2);
+		int header = in.readUnsignedShort();
+		in.reset();
+		if (header == JAVA_SERIALIZATION_MAGIC) {
+			return LegacySaveReader.read(in); // saved before there was a save format
+		}
+		if (in.readInt() != SaveGameWriter.MAGIC) {
+			throw new IOException("Not a saved game");
+		}
+		int version = in.readShort();
+		if (version > SaveGameWriter.FORMAT_VERSION) {
+			throw new IOException("Saved game is from a newer version (format " + version + ")");
+		}
+		Map map = readMap(in);
+		return readGame(in, map, version);
+	}
+
+	// ========================================
+
+	public static Map readMap(DataInput in) throws IOException {
+		int numNodes = readVarInt(in);
+		boolean smallOffsets = in.readBoolean();
+		MapNode[] nodes = new MapNode[numNodes];
+		nodes[0] = new MapNode(in.readDouble(), in.readDouble());
+		Map map = new Map();
+		map.setRootNode(nodes[0]);
+		for (int i = 1; i < numNodes; i++) {
+			MapNode parent = nodes[i - readVarInt(in)];
+			if (smallOffsets) {
+				nodes[i] = new MapNode(parent.getX() + in.readByte(), parent.getY() + in.readByte());
+			}
+			else {
+				nodes[i] = new MapNode(in.readDouble(), in.readDouble());
+			}
+			parent.addChild(nodes[i]);
+		}
+		map.makeNodeList(); // gives every node the id it was saved with
+
+		int n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			map.addPeddlerLocation(nodes[readVarInt(in)]);
+		}
+		n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			map.addStrongholdLocation(nodes[readVarInt(in)]);
+		}
+		n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			map.addArableLand(nodes[readVarInt(in)]);
+		}
+		n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			map.addGoldVein(nodes[readVarInt(in)]);
+		}
+		return map;
+	}
+
+	// ========================================
+
+	public static GameInstance readGame(DataInput in, Map map) throws IOException {
+		// reads everything written by SaveGameWriter.writeGame, playing it on the given map
+		return readGame(in, map, SaveGameWriter.FORMAT_VERSION);
+	}
+
+	static GameInstance readGame(DataInput in, Map map, int version) throws IOException {
+		long seed = in.readLong();
+		GameRandom random = new GameRandom(in.readLong());
+		Double dir = new Double(in.readDouble(), in.readDouble());
+		long ticks = version >= 5 ? in.readLong() : 0;
+
+		GameState state = GameState.readState(in, map);
+
+		int n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			MapNode node = map.getNode(readVarInt(in));
+			Settlement s = createSettlement(in.readByte());
+			s.readState(in);
+			s.setLastUpdate(version >= 2 ? in.readDouble() : state.getDaytimeClock());
+			if (s instanceof GoldMine && version >= 4) {
+				((GoldMine)s).setNextGoldProgress(in.readDouble());
+			}
+			state.addSettlement(s, node);
+		}
+		n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			MapNode node = map.getNode(readVarInt(in));
+			Wall w = new Wall();
+			w.readState(in);
+			w.setLastUpdate(version >= 2 ? in.readDouble() : state.getDaytimeClock());
+			state.addWall(w, node);
+		}
+		n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			MapNode node = map.getNode(readVarInt(in));
+			state.addStronghold(node, new Stronghold(node));
+		}
+		n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			MapNode location = map.getNode(readVarInt(in));
+			Stronghold target = state.getStrongholdAt(map.getNode(readVarInt(in)));
+			Sortie s = new Sortie(location, target);
+			s.readState(in);
+			state.addSortie(s);
+		}
+		n = readVarInt(in);
+		for (int i = 0; i < n; i++) {
+			FrontierAttack a = new FrontierAttack(map.getNode(readVarInt(in)), 0);
+			a.readState(in);
+			a.setLastUpdate(version >= 3 ? in.readDouble() : state.getNighttimeClock());
+			state.addFrontierAttack(a);
+		}
+
+		state.rebuildDerivedState();
+		return new GameInstance(state, seed, random, dir, ticks);
+	}
+
+	// ========================================
+
+	private static Settlement createSettlement(byte type) throws IOException {
+		// readState overwrites everything these constructors set
+		switch (type) {
+			case SaveGameWriter.CAPITAL: return new Capital(1);
+			case SaveGameWriter.CITY: return new City();
+			case SaveGameWriter.FARM: return new Farm();
+			case SaveGameWriter.GOLD_MINE: return new GoldMine();
+			case SaveGameWriter.PEDDLER: return new Peddler();
+			default: throw new IOException("Unknown settlement type in saved game: " + type);
+		}
+	}
+
+	// ========================================
+
+	static BitSet readBitSet(DataInput in) throws IOException {
+		long[] words = new long[readVarInt(in)];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		return BitSet.valueOf(words);
+	}
+
+	// ========================================
+
+	static void readPopulation(DataInput in, Population p) throws IOException {
+		int mask = in.readByte();
+		for (SubjectType st: SubjectType.values()) {
+			if ((mask & (1 << st.ordinal())) != 0) {
+				p.addSubjects(st, readVarInt(in));
+			}
+		}
+	}
+
+	// ========================================
+
+	static int readVarInt(DataInput in) throws IOException {
+		int n = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = in.readByte();
+			n |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return n;
+			}
+		}
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+// Writes games in the compact binary save format that SaveGameReader loads.
+// Layout: header, map topology, game-level fields, game state, then typed records for settlements, walls, strongholds, sorties and attacks.
+
+package core;
+import java.awt.geom.Point2D.Double;
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.LinkedList;
+
+
+public class SaveGameWriter {
+
+	public static final int MAGIC = 0x4d4f4e52; // "MONR"
+	public static final int FORMAT_VERSION = 5; // 2 added lastUpdate to settlement and wall records, 3 to attacks, 4 gold mine progress, 5 the tick count
+	static final byte CAPITAL = 0; // settlement record types
+	static final byte CITY = 1;
+	static final byte FARM = 2;
+	static final byte GOLD_MINE = 3;
+	static final byte PEDDLER = 4;
+
+
+
+	public static void write(GameInstance game, OutputStream os) throws IOException {
+		FlightEvents.SaveGameEvent event = new FlightEvents.SaveGameEvent();
+		event.begin();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+		out.writeInt(MAGIC);
+		out.writeShort(FORMAT_VERSION);
+		writeMap(out, game.getMap());
+		writeGame(out, game);
+		out.flush();
+		event.end();
+		if (event.shouldCommit()) {
+			event.dayCount = game.getDayCount();
+			event.nodeCount = game.getMap().getNodeCount();
+			event.commit();
+		}
+	}
+
+	// ========================================
+
+	public static void writeMap(DataOutput out, Map map) throws IOException {
+		// Nodes are written in id order, which is a preorder walk of the tree, so each node only needs its parent's id
+		// and re-adding them in order rebuilds the same children lists. MapGen puts nodes one unit apart, so offsets
+		// from the parent normally fit in a byte each.
+		int numNodes = map.getNodeCount();
+		boolean smallOffsets = true;
+		for (int i = 1; i < numNodes && smallOffsets; i++) {
+			MapNode node = map.getNode(i);
+			smallOffsets = isSmallOffset(node.getX() - node.getParent().getX()) && isSmallOffset(node.getY() - node.getParent().getY());
+		}
+
+		writeVarInt(out, numNodes);
+		out.writeBoolean(smallOffsets);
+		out.writeDouble(map.getRootNode().getX());
+		out.writeDouble(map.getRootNode().getY());
+		for (int i = 1; i < numNodes; i++) {
+			MapNode node = map.getNode(i);
+			writeVarInt(out, i - node.getParent().getId());
+			if (smallOffsets) {
+				out.writeByte((int)(node.getX() - node.getParent().getX()));
+				out.writeByte((int)(node.getY() - node.getParent().getY()));
+			}
+			else {
+				out.writeDouble(node.getX());
+				out.writeDouble(node.getY());
+			}
+		}
+
+		writeNodeList(out, map.getPeddlerLocations());
+		writeNodeList(out, map.getStrongholdLocations());
+		writeNodeList(out, map.getArableLand());
+		writeNodeList(out, map.getGoldVeins());
+	}
+
+	private static boolean isSmallOffset(double d) {
+		return d == Math.rint(d) && d >= Byte.MIN_VALUE && d <= Byte.MAX_VALUE;
+	}
+
+	// ========================================
+
+	public static void writeGame(DataOutput out, GameInstance game) throws IOException {
+		// everything except the map, so a game can be copied without copying the map it is played on
+		out.writeLong(game.getSeed());
+		out.writeLong(game.getRandom().getState());
+		Double dir = game.getMonarchMovementDirection();
+		out.writeDouble(dir.getX());
+		out.writeDouble(dir.getY());
+		out.writeLong(game.getTickCount());
+
+		GameState state = game.getState();
+		state.writeState(out);
+
+		// settlements and walls are kept in the order they were added in:
+		writeVarInt(out, state.getAllSettlements().size());
+		for (Settlement s: state.getAllSettlements()) {
+			writeVarInt(out, state.findLocationOfSettlement(s).getId());
+			out.writeByte(getSettlementType(s));
+			s.writeState(out);
+			out.writeDouble(s.getLastUpdate());
+			if (s instanceof GoldMine) {
+				out.writeDouble(((GoldMine)s).getNextGoldProgress());
+			}
+		}
+		writeVarInt(out, state.getAllWalls().size());
+		for (Wall w: state.getAllWalls()) {
+			writeVarInt(out, state.findLocationOfWall(w).getId());
+			w.writeState(out);
+			out.writeDouble(w.getLastUpdate());
+		}
+
+		// strongholds have no state beyond their location:
+		writeVarInt(out, state.countStrongholds());
+		for (MapNode node: game.getMap().getNodeList()) {
+			if (state.getStrongholdAt(node) != null) {
+				writeVarInt(out, node.getId());
+			}
+		}
+
+		writeVarInt(out, state.getSorties().size());
+		for (Sortie s: state.getSorties()) {
+			writeVarInt(out, s.getLocation().getId());
+			writeVarInt(out, state.findLocationOfStronghold(s.getTarget()).getId());
+			s.writeState(out);
+		}
+		writeVarInt(out, state.getFrontierAttacks().size());
+		for (FrontierAttack a: state.getFrontierAttacks()) {
+			writeVarInt(out, a.getTargetNode().getId());
+			a.writeState(out);
+			out.writeDouble(a.getLastUpdate());
+		}
+	}
+
+	// ========================================
+
+	private static byte getSettlementType(Settlement s) {
+		if (s instanceof Capital) {
+			return CAPITAL;
+		}
+		else if (s instanceof City) {
+			return CITY;
+		}
+		else if (s instanceof Farm) {
+			return FARM;
+		}
+		else if (s instanceof GoldMine) {
+			return GOLD_MINE;
+		}
+		else if (s instanceof Peddler) {
+			return PEDDLER;
+		}
+		throw new IllegalArgumentException("Unknown settlement type: " + s.getClass().getName());
+	}
+
+	// ========================================
+
+	private static void writeNodeList(DataOutput out, LinkedList<MapNode> list) throws IOException {
+		writeVarInt(out, list.size());
+		for (MapNode node: list) {
+			writeVarInt(out, node.getId());
+		}
+	}
+
+	// ========================================
+
+	static void writeBitSet(DataOutput out, BitSet bits) throws IOException {
+		long[] words = bits.toLongArray();
+		writeVarInt(out, words.length);
+		for (long w: words) {
+			out.writeLong(w);
+		}
+	}
+
+	// ========================================
+
+	static void writePopulation(DataOutput out, Population p) throws IOException {
+		// a bit mask of the subject types present, then their counts (most nodes only have idle subjects)
+		int mask = 0;
+		for (SubjectType st: SubjectType.values()) {
+			if (p.getCount(st) != 0) {
+				mask |= 1 << st.ordinal();
+			}
+		}
+		out.writeByte(mask);
+		for (SubjectType st: SubjectType.values()) {
+			if (p.getCount(st) != 0) {
+				writeVarInt(out, p.getCount(st));
+			}
+		}
+	}
+
+	// ========================================
+
+	static void writeVarInt(DataOutput out, int n) throws IOException {
+		// 7 bits per byte, low bits first (negative numbers still work, but take five bytes)
+		while ((n & ~0x7f) != 0) {
+			out.writeByte((n & 0x7f) | 0x80);
+			n >>>= 7;
+		}
+		out.writeByte(n);
+	}
+
+
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+// Something that progresses continuously but only needs handling when its progress crosses a threshold.
+// Its rates are latched: they are read from the game by latchRates and used until it is next called, so anything that
+// changes one of their inputs has to touch the object (see EventScheduler.touch). Times are on the clock of whichever
+// scheduler it is in: settlements and walls use the daytime clock and attacks the nighttime one (see GameState).
+
+package core;
+
+
+public interface Scheduled {
+
+	public static final double EPSILON = 1e-9; // progress this close to a threshold counts as having reached it
+
+
+	public void advanceTo(double time); // works out progress up to the given time at the latched rates
+
+
+	public void fireEvents(GameInstance instance); // handles whichever thresholds have been reached
+
+
+	public void latchRates(GameInstance instance);
+
+
+	public double getNextEventTime(); // Double.POSITIVE_INFINITY if nothing is progressing
+
+
+	public double getLastUpdate();
+
+
+	public void setLastUpdate(double time);
+
+
+}
\ No newline at end of file
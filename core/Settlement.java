@@ -2,16 +2,21 @@
 // Note that this does not cover fortifications.
 
 package core;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
 
-public abstract class Settlement implements Serializable {
+public abstract class Settlement implements Scheduled, Serializable {
 
 	protected int level; // upgrade level
 	protected int gold; // amount in the treasury
 	protected boolean isBuildingSite; // if true, settlement has not yet been built (even at level 1)
 	protected double constructionProgress; // percentage complete that building or upgrading is
 	protected boolean isUpgrading;
+	private double lastUpdate; // daytime clock time that progress has been worked out up to
+	private double constructionRate; // latched, in progress per day
 
 
 	public abstract boolean allowsGoldDeposits();
@@ -23,9 +28,6 @@ public abstract class Settlement implements Serializable {
 	public abstract boolean doesSellEquipment(SubjectType s);
 
 
-	protected abstract void update(GameInstance parent, double progress);
-
-
 	public abstract void onSubjectAdded(SubjectType s, GameInstance instance);
 
 
@@ -56,18 +58,126 @@ public abstract class Settlement implements Serializable {
 
 	// =====================================
 
-	public void updateSettlement(GameInstance parent, double progress) {
-		if (isUpgrading) {
-			constructionProgress += progress * parent.getTotalSubjectsAtSettlement(this, SubjectType.WORKER) / getUpgradeConstructionTime();
-			if (constructionProgress >= 1.0) {
-				constructionProgress = 0.0;
+	public void advanceTo(double time) {
+		double elapsed = time - lastUpdate;
+		if (elapsed <= 0.0) {
+			return;
+		}
+		if (isBuildingSite || isUpgrading) {
+			constructionProgress += elapsed * constructionRate;
+		}
+		advanceProduction(elapsed);
+		lastUpdate = time;
+	}
+
+	// =====================================
+
+	public void fireEvents(GameInstance parent) {
+		int oldHousing = getEffectiveHousingCapacity();
+		if ((isBuildingSite || isUpgrading) && constructionProgress >= 1.0 - EPSILON) {
+			constructionProgress = 0.0;
+			if (isBuildingSite) {
+				isBuildingSite = false;
+				onBuildingFinished(parent);
+			}
+			else {
 				isUpgrading = false;
 				level++;
 				onUpgradeFinished(parent);
 			}
+			FlightEvents.ConstructionFinishedEvent event = new FlightEvents.ConstructionFinishedEvent();
+			if (event.shouldCommit()) {
+				event.nodeId = parent.findLocationOfSettlement(this).getId();
+				event.settlementType = getClass().getSimpleName();
+				event.level = level;
+				event.isUpgrade = level > 1;
+				event.commit();
+			}
+		}
+
+		fireProductionEvents(parent);
+
+		// construction and upgrades can change housing, which the game state keeps a running total of:
+		if (getEffectiveHousingCapacity() != oldHousing) {
+			parent.onHousingCapacityChanged(getEffectiveHousingCapacity() - oldHousing);
+		}
+	}
+
+	// =====================================
+
+	public void latchRates(GameInstance parent) {
+		if (isBuildingSite || isUpgrading) {
+			double time = isBuildingSite ? getBuildingTime() : getUpgradeConstructionTime();
+			constructionRate = parent.getTotalSubjectsAtSettlement(this, SubjectType.WORKER) / time;
+		}
+		else {
+			constructionRate = 0.0;
+		}
+		latchProductionRates(parent);
+	}
+
+	// =====================================
+
+	public double getNextEventTime() {
+		double t = getTimeToNextProductionEvent();
+		if (isBuildingSite || isUpgrading) {
+			t = Math.min(t, EventScheduler.getTimeToThreshold(constructionProgress, constructionRate));
 		}
+		return lastUpdate + t;
+	}
 
-		update(parent, progress);
+	// =====================================
+
+	protected double getBuildingTime() {
+		// worker-days to finish building a new settlement of this kind; only matters to ones that start as building sites
+		return 0.0;
+	}
+
+	protected void onBuildingFinished(GameInstance instance) {
+	}
+
+	// =====================================
+
+	protected void advanceProduction(double elapsed) {
+		// settlements that produce something over time override these four
+	}
+
+	protected void fireProductionEvents(GameInstance instance) {
+	}
+
+	protected void latchProductionRates(GameInstance instance) {
+	}
+
+	protected double getTimeToNextProductionEvent() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	// =====================================
+
+	void writeState(DataOutput out) throws IOException {
+		// used by SaveGameWriter; the settlement's type and location are written by the caller
+		out.writeByte(level);
+		out.writeInt(gold);
+		out.writeBoolean(isBuildingSite);
+		out.writeDouble(constructionProgress);
+		out.writeBoolean(isUpgrading);
+		writeExtraState(out);
+	}
+
+	void readState(DataInput in) throws IOException {
+		level = in.readByte();
+		gold = in.readInt();
+		isBuildingSite = in.readBoolean();
+		constructionProgress = in.readDouble();
+		isUpgrading = in.readBoolean();
+		readExtraState(in);
+	}
+
+	protected void writeExtraState(DataOutput out) throws IOException {
+		// subclasses with state of their own override this and readExtraState
+	}
+
+	protected void readExtraState(DataInput in) throws IOException {
 	}
 
 	// ============ ACCESSORS ==============
@@ -76,6 +186,11 @@ public abstract class Settlement implements Serializable {
 		gold += n;
 	}
 
+	public int getEffectiveHousingCapacity() {
+		// building sites don't provide any housing yet
+		return isBuildingSite ? 0 : getHousingCapacity();
+	}
+
 	public double getConstructionProgress() {
 		return constructionProgress;
 	}
@@ -84,6 +199,10 @@ public abstract class Settlement implements Serializable {
 		return gold;
 	}
 
+	public double getLastUpdate() {
+		return lastUpdate;
+	}
+
 	public int getLevel() {
 		return level;
 	}
@@ -96,5 +215,9 @@ public abstract class Settlement implements Serializable {
 		return isUpgrading;
 	}
 
+	public void setLastUpdate(double time) {
+		lastUpdate = time;
+	}
+
 
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 // A human attack which is in progress.
 
 package core;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
 
@@ -23,6 +26,12 @@ public class Sortie implements Serializable {
 		// ^ (adjacent counts as zero distance)
 	}
 
+	Sortie(MapNode node, Stronghold stronghold) {
+		// used when loading a saved game; the rest is filled in by readState
+		location = node;
+		target = stronghold;
+	}
+
 	// ================================
 
 	public double getDistancePenalty() {
@@ -57,6 +66,23 @@ public class Sortie implements Serializable {
 		}
 	}
 
+	// ================================
+
+	void writeState(DataOutput out) throws IOException {
+		// used by SaveGameWriter; location and target are written by the caller
+		out.writeInt(distanceToTarget);
+		out.writeInt(casaultyCount);
+		out.writeDouble(victoryProgress);
+		out.writeDouble(nextCasaultyProgress);
+	}
+
+	void readState(DataInput in) throws IOException {
+		distanceToTarget = in.readInt();
+		casaultyCount = in.readInt();
+		victoryProgress = in.readDouble();
+		nextCasaultyProgress = in.readDouble();
+	}
+
 	// ======== ACCESSORS =============
 
 	public int getCasaultyCount() {
@@ -0,0 +1,82 @@
+// A reference bot that holds on to what it has: it keeps arming subjects at the capital and carrying them to the
+// weakest frontier, walls the frontiers, and only captures another node while every frontier is well defended.
+
+package core;
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class TurtleDefender extends BotPolicy {
+
+	private static final double SAFETY_MARGIN = 1.5; // defense needed at every frontier before expanding, relative to the danger level
+
+
+	public List<PlayerCommand> decide(GameView game, DecisionPoint point) {
+		List<PlayerCommand> commands = new ArrayList<PlayerCommand>();
+		MapNode here = game.getMonarchNodeLocation();
+		if (here == null) {
+			return commands;
+		}
+
+		// arm whoever can be armed here (paid for from the treasury first, so this comes before filling the purse):
+		int soldiers = game.getRetinueCount(SubjectType.SOLDIER);
+		Settlement settlement = game.getSettlementAt(here);
+		if (settlement != null && game.isNodeCaptured(here) && !settlement.isBuildingSite() && settlement.doesSellEquipment(SubjectType.SOLDIER)) {
+			int recruits = Math.min(game.getRetinueMax() - game.getRetinueCount(), game.getPopulationAtNode(here, SubjectType.IDLE));
+			for (int i = 0; i < recruits; i++) {
+				commands.add(new PlayerCommand(PlayerCommand.Type.RECRUIT_SUBJECT, SubjectType.IDLE));
+			}
+			int idle = game.getRetinueCount(SubjectType.IDLE) + recruits;
+			int available = game.getMonarchGold() + settlement.getGold();
+			int cost = game.calculateEquipmentCost(SubjectType.SOLDIER);
+			for (; idle > 0 && available >= cost; idle--) {
+				commands.add(new PlayerCommand(PlayerCommand.Type.EQUIP_SUBJECT, SubjectType.SOLDIER));
+				available -= cost;
+				soldiers++;
+			}
+		}
+		int gold = withdrawGold(game, commands);
+
+		// take soldiers to where they're needed most:
+		if (soldiers > 0) {
+			MapNode frontier = findWeakestFrontier(game);
+			if (frontier != null && frontier != here) {
+				moveTowards(game, frontier, commands);
+				return commands;
+			}
+			for (int i = 0; i < soldiers; i++) {
+				commands.add(new PlayerCommand(PlayerCommand.Type.LEAVE_SUBJECT, SubjectType.SOLDIER));
+			}
+		}
+		if (game.isFrontier(here) && gold > 0) {
+			commands.add(new PlayerCommand(PlayerCommand.Type.BUILD_OR_UPGRADE_WALL));
+		}
+
+		// grow only while it's safe to:
+		if (game.isDaytime() && gold >= GameInstance.NODE_CAPTURE_COST && isKingdomSafe(game)) {
+			if (game.canNodeBeCaptured(here)) {
+				commands.add(new PlayerCommand(PlayerCommand.Type.CAPTURE_NODE, here));
+				return commands;
+			}
+			for (MapNode neighbor: here.getNeighbors()) {
+				if (game.canNodeBeCaptured(neighbor)) {
+					moveTowards(game, neighbor, commands);
+					return commands;
+				}
+			}
+		}
+
+		// otherwise go back for more soldiers:
+		moveTowards(game, game.getMap().getRootNode(), commands);
+		return commands;
+	}
+
+	// =================================
+
+	private boolean isKingdomSafe(GameView game) {
+		MapNode weakest = findWeakestFrontier(game);
+		return weakest == null || game.getDefenseRating(weakest) >= game.getDangerLevel() * SAFETY_MARGIN;
+	}
+
+
+}
\ No newline at end of file
@@ -1,10 +1,13 @@
 // The static defenses at a node
 
 package core;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
 
-public class Wall implements Serializable {
+public class Wall implements Scheduled, Serializable {
 
 	public static final int MAX_LEVEL = 5;
 	private static int[] constructionAndUpgradeCosts = new int[]{4, 6, 16, 24, 40};
@@ -14,6 +17,8 @@ public class Wall implements Serializable {
 	private boolean isBuildingSite;
 	private boolean isUpgrading;
 	private double constructionProgress;
+	private double lastUpdate; // daytime clock time that progress has been worked out up to
+	private double constructionRate; // latched, in progress per day
 
 
 	public Wall() {
@@ -23,18 +28,48 @@ public class Wall implements Serializable {
 
 	// ===================================
 
-	public void update(double progress, GameInstance instance) {
+	public void advanceTo(double time) {
+		double elapsed = time - lastUpdate;
+		if (elapsed <= 0.0) {
+			return;
+		}
 		if (isBuildingSite || isUpgrading) {
-			constructionProgress += progress * instance.getTotalSubjectsAtWall(this, SubjectType.WORKER) / constructionTimes[level - 1];
-			if (constructionProgress >= 1.0) {
-				isBuildingSite = false;
-				if (isUpgrading) {
-					isUpgrading = false;
-					level++;
-				}
-				constructionProgress = 0.0;
+			constructionProgress += elapsed * constructionRate;
+		}
+		lastUpdate = time;
+	}
+
+	// ===================================
+
+	public void fireEvents(GameInstance instance) {
+		if ((isBuildingSite || isUpgrading) && constructionProgress >= 1.0 - EPSILON) {
+			isBuildingSite = false;
+			if (isUpgrading) {
+				isUpgrading = false;
+				level++;
 			}
+			constructionProgress = 0.0;
+		}
+	}
+
+	// ===================================
+
+	public void latchRates(GameInstance instance) {
+		if (isBuildingSite || isUpgrading) {
+			constructionRate = instance.getTotalSubjectsAtWall(this, SubjectType.WORKER) / constructionTimes[level - 1];
+		}
+		else {
+			constructionRate = 0.0;
+		}
+	}
+
+	// ===================================
+
+	public double getNextEventTime() {
+		if (!isBuildingSite && !isUpgrading) {
+			return Double.POSITIVE_INFINITY;
 		}
+		return lastUpdate + EventScheduler.getTimeToThreshold(constructionProgress, constructionRate);
 	}
 
 	// ===================================
@@ -44,6 +79,23 @@ public class Wall implements Serializable {
 		constructionProgress = 0.0;
 	}
 
+	// ===================================
+
+	void writeState(DataOutput out) throws IOException {
+		// used by SaveGameWriter; the wall's location is written by the caller
+		out.writeByte(level);
+		out.writeBoolean(isBuildingSite);
+		out.writeBoolean(isUpgrading);
+		out.writeDouble(constructionProgress);
+	}
+
+	void readState(DataInput in) throws IOException {
+		level = in.readByte();
+		isBuildingSite = in.readBoolean();
+		isUpgrading = in.readBoolean();
+		constructionProgress = in.readDouble();
+	}
+
 	// ========= ACCESSORS ===============
 
 	public double getConstructionProgress() {
@@ -61,6 +113,10 @@ public class Wall implements Serializable {
 		return defenseRatings[level - 1];
 	}
 
+	public double getLastUpdate() {
+		return lastUpdate;
+	}
+
 	public int getLevel() {
 		return level;
 	}
@@ -80,5 +136,9 @@ public class Wall implements Serializable {
 		return isUpgrading;
 	}
 
+	public void setLastUpdate(double time) {
+		lastUpdate = time;
+	}
+
 
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 // Top level GUI
 
 package gui;
+import core.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.Set;
 import javax.swing.*;
 
 
@@ -51,6 +53,13 @@ public class GUI extends JFrame implements KeyListener {
 
 	// ====================================
 
+	public void repaintChanges(Set<GameInstance.Change> changes) {
+		// can be called from any thread
+		currentPanel.repaintChanges(changes);
+	}
+
+	// ====================================
+
 	public GUICallbackManager getCallbackManager() {
 		return callbackManager;
 	}
@@ -64,11 +73,25 @@ public class GUI extends JFrame implements KeyListener {
 	// ====================================
 
 	public void keyPressed(KeyEvent e) {
-		if (!callbackManager.isPaused()) {
+		if (!callbackManager.isPaused() || isAllowedWhilePaused(e)) {
 			currentPanel.keyPressed(e);
 		}
 	}
 
+	private static boolean isAllowedWhilePaused(KeyEvent e) {
+		// keys that only change the view, or rewind (which pauses the game anyway, so has to keep working)
+		switch (e.getKeyCode()) {
+			case KeyEvent.VK_K:
+			case KeyEvent.VK_EQUALS:
+			case KeyEvent.VK_PLUS:
+			case KeyEvent.VK_MINUS:
+			case KeyEvent.VK_BACK_SPACE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
 	public void keyReleased(KeyEvent e) {
 		currentPanel.keyReleased(e);
 	}
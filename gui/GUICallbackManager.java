@@ -7,7 +7,13 @@ import core.*;
 public interface GUICallbackManager {
 
 
-	public GameInstance getCurrentGame();
+	public GameInstance getRenderFrame(); // a read-only copy of the game as of the last tick
+	
+
+	public GameMetrics getMetrics();
+
+
+	public void submitCommand(PlayerCommand c);
 	
 
 	public void loadGame();
@@ -19,6 +25,9 @@ public interface GUICallbackManager {
 	public void saveGame();
 
 
+	public void rewind(); // goes back a little way in the game's history, and pauses
+
+
 	public boolean isPaused();
 
 
@@ -9,12 +9,6 @@ import javax.swing.*;
 
 public class GameInfoPanel extends JPanel implements ActionListener {
 
-	private static ImageIcon goldImage = new ImageIcon("images/gold.png");
-	private static final ImageIcon idleSubjectImage = new ImageIcon("images/subject_idle.png");
-	private static final ImageIcon soldierImage = new ImageIcon("images/subject_soldier.png");
-	private static final ImageIcon workerImage = new ImageIcon("images/subject_worker.png");
-	private static final ImageIcon farmerImage = new ImageIcon("images/subject_farmer.png");
-	private static final ImageIcon captainImage = new ImageIcon("images/subject_captain.png");
 	private GUI gui;
 	private JButton saveButton;
 	private JButton pauseButton;
@@ -38,19 +32,30 @@ public class GameInfoPanel extends JPanel implements ActionListener {
 
 	// ================================================
 
+	public void paint(Graphics g) {
+		GameMetrics metrics = gui.getCallbackManager().getMetrics();
+		long start = metrics.startTimer();
+		// the game can pause itself (e.g. when rewound), so the button is kept in step here rather than only when clicked:
+		pauseButton.setText(gui.getCallbackManager().isPaused() ? "Resume" : "Pause");
+		super.paint(g);
+		metrics.record(GameMetrics.Section.PAINT, start);
+	}
+
+	// ================================================
+
 	public void paintComponent(Graphics g) {
 		g.setColor(Color.BLACK);
 		g.setFont(new Font("foo", Font.PLAIN, 14));
 		int textY = 17;
 
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
+		GameInstance instance = gui.getCallbackManager().getRenderFrame();
 		g.drawString("Day " + instance.getDayCount(), 8, textY);
 
 		g.drawLine(58, 4, 58, getHeight() - 8);
 
 		int x = 70;
 		// show gold amount:
-		g.drawImage(goldImage.getImage(), x, -2, 36, 32, this);
+		IconManager.draw(g, "gold", x, -2, 36, 32);
 		x += 33;
 		g.drawString("x " + instance.getMonarchGold() + " / " + instance.getMonarchMaxGold(), x, textY);
 		x += 76;
@@ -60,7 +65,7 @@ public class GameInfoPanel extends JPanel implements ActionListener {
 		x += 100;
 		for (SubjectType s: SubjectType.values()) {
 			for (int i = 0; i < instance.getRetinueCount(s); i++) {
-				g.drawImage(getImageForSubjectType(s).getImage(), x, textY - 12, 28, 21, this);
+				IconManager.draw(g, NodeControlPanel.getImageForSubjectType(s), x, textY - 12, 28, 21);
 				x += 22;
 			}
 		}
@@ -79,19 +84,6 @@ public class GameInfoPanel extends JPanel implements ActionListener {
 
 	// ================================================
 
-	private ImageIcon getImageForSubjectType(SubjectType s) {
-		switch(s) {
-			case IDLE: return idleSubjectImage;
-			case SOLDIER: return soldierImage;
-			case WORKER: return workerImage;
-			case FARMER: return farmerImage;
-			case CAPTAIN: return captainImage;
-			default: return null;
-		}
-	}
-
-	// ================================================
-
 	public void actionPerformed(ActionEvent e) {
 		if (e.getSource() == saveButton) {
 			gui.getCallbackManager().saveGame();
@@ -99,12 +91,11 @@ public class GameInfoPanel extends JPanel implements ActionListener {
 		if (e.getSource() == pauseButton) {
 			if (gui.getCallbackManager().isPaused()) {
 				gui.getCallbackManager().resume();
-				pauseButton.setText("Pause");
 			}
 			else {
 				gui.getCallbackManager().pause();
-				pauseButton.setText("Resume");
 			}
+			gui.repaint(); // the paused screen looks different, and the game won't be asking for repaints
 		}
 		
 		gui.resetFocus();
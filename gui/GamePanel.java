@@ -1,14 +1,17 @@
 // Top-level GUI for everything that occurs within a game
 
 package gui;
+import core.*;
 import java.awt.*;
 import java.awt.geom.Point2D.Double;
 import java.awt.event.KeyEvent;
+import java.util.Set;
 import javax.swing.*;
 
 
 public class GamePanel extends MyContentPanel {
 
+	private GameInfoPanel infoPanel;
 	private NodeControlPanel controlPanel;
 	private MapPanel mapPanel;
 
@@ -19,7 +22,8 @@ public class GamePanel extends MyContentPanel {
 		
 		int topHeight = 32;
 		int bottomHeight = 130;
-		add(new GameInfoPanel(g, w, topHeight));
+		infoPanel = new GameInfoPanel(g, w, topHeight);
+		add(infoPanel);
 		add(new GUIRectangle(w, 1, Color.BLACK));
 		mapPanel = new MapPanel(g, w, h - topHeight - bottomHeight - 2);
 		add(mapPanel);
@@ -30,9 +34,47 @@ public class GamePanel extends MyContentPanel {
 
 	// ==================================
 
+	public void repaintChanges(Set<GameInstance.Change> changes) {
+		// Only the components showing something that changed are repainted (Swing paints each one on its own,
+		// and merges requests that come in before it gets round to them).
+		if (changes.contains(GameInstance.Change.MAP)) {
+			mapPanel.repaint();
+		}
+		else {
+			if (changes.contains(GameInstance.Change.KINGDOM)) {
+				mapPanel.repaintKingdomView();
+			}
+			if (changes.contains(GameInstance.Change.CLOCK)) {
+				mapPanel.repaintClock();
+			}
+		}
+		if (changes.contains(GameInstance.Change.KINGDOM)) {
+			infoPanel.repaint();
+		}
+		// the node details show progress as well as the node:
+		controlPanel.repaint();
+	}
+
+	// ==================================
+
 	public void keyPressed(KeyEvent e) {
 		if (e.getKeyCode() == KeyEvent.VK_K) {
 			mapPanel.toggleKingdomView();
+			mapPanel.repaint();
+			return;
+		}
+		if (e.getKeyCode() == KeyEvent.VK_EQUALS || e.getKeyCode() == KeyEvent.VK_PLUS) {
+			mapPanel.zoomIn();
+			mapPanel.repaint();
+			return;
+		}
+		if (e.getKeyCode() == KeyEvent.VK_MINUS) {
+			mapPanel.zoomOut();
+			mapPanel.repaint();
+			return;
+		}
+		if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+			gui.getCallbackManager().rewind();
 			return;
 		}
 
@@ -51,7 +93,7 @@ public class GamePanel extends MyContentPanel {
 		}
 		
 		if (direction != null) {
-			gui.getCallbackManager().getCurrentGame().startMonarchMovementInDirection(direction);
+			gui.getCallbackManager().submitCommand(new PlayerCommand(PlayerCommand.Type.START_MOVING, direction));
 		}
 		else {
 			controlPanel.keyPressed(e);
@@ -76,7 +118,7 @@ public class GamePanel extends MyContentPanel {
 		}
 		
 		if (direction != null) {
-			gui.getCallbackManager().getCurrentGame().stopMonarchMovementInDirection(direction);
+			gui.getCallbackManager().submitCommand(new PlayerCommand(PlayerCommand.Type.STOP_MOVING, direction));
 		}
 	}
 }
\ No newline at end of file
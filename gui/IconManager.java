@@ -0,0 +1,96 @@
+// Every image the GUI draws, by name (the file name in images/ without ".png"). Each file is loaded once, and each size it
+// is drawn at is scaled once, into an image that matches the screen's format, so drawing an icon is a straight copy
+// rather than a scale on every paint. Only used from the GUI thread.
+
+package gui;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import javax.imageio.ImageIO;
+
+
+public class IconManager {
+
+	private static final String IMAGE_DIRECTORY = "images/";
+	private static HashMap<String, Icon> icons = new HashMap<String, Icon>();
+
+
+	private IconManager() {
+	}
+
+	// ========================================
+
+	public static void draw(Graphics g, String name, int x, int y, int w, int h) {
+		g.drawImage(getImage(name, w, h), x, y, null);
+	}
+
+	// ========================================
+
+	public static Image getImage(String name, int w, int h) {
+		Icon icon = icons.get(name);
+		if (icon == null) {
+			icon = new Icon(loadImage(name));
+			icons.put(name, icon);
+		}
+		// an icon is only ever drawn at a size or two, so a list is quicker to search than a map:
+		for (BufferedImage scaled: icon.scaledImages) {
+			if (scaled.getWidth() == w && scaled.getHeight() == h) {
+				return scaled;
+			}
+		}
+		BufferedImage scaled = scaleImage(icon.source, w, h);
+		icon.scaledImages.add(scaled);
+		return scaled;
+	}
+
+	// ========================================
+
+	private static Image loadImage(String name) {
+		try {
+			return ImageIO.read(new File(IMAGE_DIRECTORY + name + ".png"));
+		}
+		catch (IOException e) {
+			// draw nothing, the way a missing ImageIcon did
+			System.err.println("ERROR: could not load image '" + name + "': " + e);
+			return null;
+		}
+	}
+
+	// ========================================
+
+	private static BufferedImage scaleImage(Image source, int w, int h) {
+		BufferedImage scaled;
+		if (GraphicsEnvironment.isHeadless()) {
+			scaled = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+		}
+		else {
+			GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+			scaled = config.createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+		}
+		if (source != null) {
+			// area averaging is slow but looks much better than scaling on the fly, and it's only done once:
+			Image smooth = source.getScaledInstance(w, h, Image.SCALE_AREA_AVERAGING);
+			Graphics g = scaled.getGraphics();
+			g.drawImage(smooth, 0, 0, null);
+			g.dispose();
+		}
+		return scaled;
+	}
+
+	// ========================================
+
+	private static class Icon {
+		Image source;
+		ArrayList<BufferedImage> scaledImages; // the sizes it has been drawn at
+
+		Icon(Image s) {
+			source = s;
+			scaledImages = new ArrayList<BufferedImage>();
+		}
+	}
+
+
+}
\ No newline at end of file
@@ -3,79 +3,92 @@
 package gui;
 import core.*;
 import java.awt.*;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import javax.swing.*;
 
 
 public class MapPanel extends JComponent {
 
-	private static final int PX_PER_MAPCOORD = 190; // controls zoom level
-	private static final int NODE_RADIUS = 34; // in pixels
+	private static final int[] ZOOM_LEVELS = new int[]{190, 95, 48, 24, 12}; // in pixels per map coord, closest first
+	private static final int DETAIL_ZOOM = 100; // when zoomed out past this many pixels per map coord, nodes are drawn without icons or text
+	private static final int NODE_RADIUS = 34; // in pixels, when fully zoomed in
+	private static final int NODE_EXTENT = NODE_RADIUS + 40; // how far a node's icons and labels reach from its center
+	private static final int TILE_SIZE = 256; // in pixels, for the cache of the drawn map
+	private static final int MAX_CACHED_TILES = 96; // enough for a few screens' worth
+	private static final int NODE_SIGNATURE_LENGTH = 7; // see writeNodeSignature
+	private static final int CLOCK_WIDTH = 224;
+	private static final int CLOCK_HEIGHT = 28;
+	private static final int KINGDOM_VIEW_WIDTH = 220;
+	private static final int KINGDOM_VIEW_HEIGHT = 160; // when open
 	private static final Color BG_COLOR_DAY = new Color(190, 190, 190);
 	private static final Color BG_COLOR_NIGHT = new Color(125, 125, 125);
-	private static ImageIcon penantImage = new ImageIcon("images/penant.png");
-	private static ImageIcon doublePenantImage = new ImageIcon("images/double_penant.png");
-	private static ImageIcon goldImage = new ImageIcon("images/gold.png");
-	private static ImageIcon peddlerImage = new ImageIcon("images/peddler.png");
-	private static ImageIcon[] capitalImages = new ImageIcon[]{
-		new ImageIcon("images/capital1.png"), new ImageIcon("images/capital2.png"), new ImageIcon("images/capital3.png"), new ImageIcon("images/capital4.png"), new ImageIcon("images/capital5.png")
-	};
-	private static ImageIcon[] cityImages = new ImageIcon[]{
-		new ImageIcon("images/city1.png"), new ImageIcon("images/city2.png"), new ImageIcon("images/city3.png"), new ImageIcon("images/city4.png"), new ImageIcon("images/city5.png")
-	};
-	private static ImageIcon[] farmImages = new ImageIcon[]{
-		new ImageIcon("images/farm1.png"), new ImageIcon("images/farm2.png"), new ImageIcon("images/farm3.png") 
-	};
-	private static final ImageIcon goldMineImage = new ImageIcon("images/gold_mine.png");
-	private static final ImageIcon goldMineExhaustedImage = new ImageIcon("images/gold_mine_exhausted.png");
-	private static ImageIcon genericPopImage = new ImageIcon("images/subject_generic.png");
-	private static ImageIcon hammerImage = new ImageIcon("images/hammer.png");
-	private static ImageIcon defenseIcon = new ImageIcon("images/defense.png");
-	private static ImageIcon powerIcon = new ImageIcon("images/enemy_strength.png");
-	private static ImageIcon arableLandIcon = new ImageIcon("images/arable_land.png");
-	private static ImageIcon goldVeinIcon = new ImageIcon("images/gold_vein.png");
-	private static ImageIcon strongholdImage = new ImageIcon("images/stronghold.png");
-	private static ImageIcon sortieImage = new ImageIcon("images/sortie.png");
-	private static ImageIcon[] wallIcons;
 	private GUI gui;
 	private boolean isKingdomViewOpen;
-
-	static {
-		wallIcons = new ImageIcon[5];
-		wallIcons[0] = new ImageIcon("images/wall1.png");
-		wallIcons[1] = new ImageIcon("images/wall2.png");
-		wallIcons[2] = new ImageIcon("images/wall3.png");
-		wallIcons[3] = new ImageIcon("images/wall4.png");
-		wallIcons[4] = new ImageIcon("images/wall5.png");
-	}
+	private GameInstance frame; // the render frame currently being painted or acted on
+	private int originX; // where map pixel (0, 0) is on screen this frame
+	private int originY;
+	private int zoomLevel; // index into ZOOM_LEVELS
+	private Map tiledMap; // the map tileNodes was worked out for
+	private int tiledZoomLevel; // and the zoom level
+	private HashMap<Long, ArrayList<MapNode>> tileNodes; // the nodes that draw into each tile, by tile key
+	private LinkedHashMap<Long, MapTile> tiles; // drawn tiles, least recently used first
 
 
 	public MapPanel(GUI g, int w, int h) {
 		gui = g;
 		setPreferredSize(new Dimension(w, h));
+		setOpaque(true); // it covers itself with the background, so Swing can repaint it without the panels behind
+		tiles = new LinkedHashMap<Long, MapTile>(MAX_CACHED_TILES, 0.75f, true) {
+			protected boolean removeEldestEntry(java.util.Map.Entry<Long, MapTile> eldest) {
+				return size() > MAX_CACHED_TILES;
+			}
+		};
+	}
+
+	// =======================================
+
+	public void paint(Graphics g) {
+		GameMetrics metrics = gui.getCallbackManager().getMetrics();
+		long start = metrics.startTimer();
+		super.paint(g);
+		metrics.record(GameMetrics.Section.PAINT, start);
 	}
 
 	// =======================================
 
 	public void paintComponent(Graphics g) {
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
+		frame = gui.getCallbackManager().getRenderFrame();
+		GameInstance instance = frame;
 		// background:
 		g.setColor(instance.isDaytime() ? BG_COLOR_DAY : BG_COLOR_NIGHT);
 		g.fillRect(0, 0, getWidth(), getHeight());
 
-		// draw edges:
-		for (MapNode node: instance.getMap().getNodeList()) {
-			if (instance.isNodeExplored(node)) {
-				paintEdges(g, node);
-			}
-		}
+		// the map is drawn in map pixels (see toMapPixel) and shifted so the monarch is in the middle:
+		java.awt.geom.Point2D.Double center = instance.getMonarchLocation();
+		originX = getWidth() / 2 - toMapPixel(center.getX());
+		originY = getHeight() / 2 - toMapPixel(center.getY());
+
+		// edges and nodes:
+		paintMapTiles(g);
 
-		// paint nodes:
-		paintMapNode(g, instance.getMap().getRootNode());
+		// attacks:
+		for (FrontierAttack attack: instance.getFrontierAttacks()) {
+			paintAttack(g, attack);
+		}
 
-		// paint monarch if they are not at a node:
-		if (instance.getMonarchNodeLocation() == null) {
+		// monarch (zoomed out, the penant would cover the surrounding nodes):
+		if (instance.getMonarchNodeLocation() == null || !isDetailed()) {
 			paintMonarch(g);
 		}
+		else {
+			paintPenant(g, instance.getMonarchNodeLocation());
+		}
 
 		// paint the clock that shows progress through the day or night:
 		paintClock(g);
@@ -106,111 +119,306 @@ public class MapPanel extends JComponent {
 
 	// =======================================
 
-	private void paintMapNode(Graphics g, MapNode node) {
-		// recursive way to draw all explored nodes
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
-		Settlement settlement = instance.getSettlementAt(node);
+	private int toMapPixel(double coord) {
+		// where a map coordinate is in the (unshifted) picture of the whole map at the current zoom
+		return (int)Math.round(coord * ZOOM_LEVELS[zoomLevel]);
+	}
 
-		java.awt.geom.Point2D.Double center = instance.getMonarchLocation();
-		int screenX = getWidth() / 2 + (int)Math.round((node.getX() - center.getX()) * PX_PER_MAPCOORD); // coords of node
-		int screenY = getHeight() / 2 + (int)Math.round((node.getY() - center.getY()) * PX_PER_MAPCOORD);
-		
-		// make sure some part of node is on screen
-		if (!(screenX + NODE_RADIUS < 0 || screenX - NODE_RADIUS > getWidth() || screenY + NODE_RADIUS < 0 || screenY - NODE_RADIUS > getHeight())) {
-
-			// If it is under attack, show that:
-			FrontierAttack attack = instance.getAttackAtNode(node);
-			if (attack != null) {
-				g.setColor(Color.RED);
-				double danger = attack.getCurrentStrength() / instance.getDefenseRating(node);
-				g.fillArc(screenX - NODE_RADIUS - 4, screenY - NODE_RADIUS - 4, NODE_RADIUS * 2 + 8, NODE_RADIUS * 2 + 8, 270, (int)(-360 * danger));
-			}
+	private boolean isDetailed() {
+		// whether nodes are drawn with their icons and text
+		return ZOOM_LEVELS[zoomLevel] >= DETAIL_ZOOM;
+	}
 
-			// draw circle and stuff inside it
-			if (instance.isNodeCaptured(node)) {
-				g.setColor(Color.BLUE);
-			}
-			else {
-				g.setColor(Color.BLACK);
-			}
-			g.fillOval(screenX - NODE_RADIUS - 2, screenY - NODE_RADIUS - 2, NODE_RADIUS * 2 + 4, NODE_RADIUS * 2 + 4);
-			g.setColor(Color.WHITE);
-			g.fillOval(screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2);
-			
-			// settlement icon:
-			if (instance.isNodeExplored(node) && settlement != null) {
-				ImageIcon icon = null;
-				if (settlement instanceof Peddler) {
-					icon = peddlerImage;
-				}
-				else if(settlement instanceof Capital) {
-					icon = capitalImages[settlement.getLevel() - 1];
+	private int getNodeRadius() {
+		return Math.max(2, NODE_RADIUS * ZOOM_LEVELS[zoomLevel] / ZOOM_LEVELS[0]);
+	}
+
+	private static long getTileKey(int tileX, int tileY) {
+		return ((long)tileX << 32) | (tileY & 0xffffffffL);
+	}
+
+	// =======================================
+
+	private void paintMapTiles(Graphics g) {
+		// Draws the edges and nodes from the cache, which holds the map in tiles of TILE_SIZE map pixels. A tile is
+		// redrawn when the signature of any node that reaches into it has changed (see writeNodeSignature), so the
+		// cost of a frame depends on how much of the map is on screen rather than how big the map is.
+		if (frame.getMap() != tiledMap || zoomLevel != tiledZoomLevel) {
+			indexTiles(frame.getMap());
+		}
+		// only the tiles in the area being repainted are needed (which is often just the clock):
+		Rectangle area = g.getClipBounds();
+		if (area == null) {
+			area = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		int firstTileX = Math.floorDiv(area.x - originX, TILE_SIZE);
+		int firstTileY = Math.floorDiv(area.y - originY, TILE_SIZE);
+		int lastTileX = Math.floorDiv(area.x + area.width - 1 - originX, TILE_SIZE);
+		int lastTileY = Math.floorDiv(area.y + area.height - 1 - originY, TILE_SIZE);
+		for (int tileX = firstTileX; tileX <= lastTileX; tileX++) {
+			for (int tileY = firstTileY; tileY <= lastTileY; tileY++) {
+				long key = getTileKey(tileX, tileY);
+				ArrayList<MapNode> nodes = tileNodes.get(key);
+				if (nodes == null) {
+					continue; // nothing there
 				}
-				else if (settlement instanceof City) {
-					icon = cityImages[settlement.getLevel() - 1];
+				int[] signature = new int[nodes.size() * NODE_SIGNATURE_LENGTH];
+				for (int i = 0; i < nodes.size(); i++) {
+					writeNodeSignature(signature, i * NODE_SIGNATURE_LENGTH, nodes.get(i));
 				}
-				else if (settlement instanceof Farm) {
-					icon = farmImages[settlement.getLevel() - 1];
+				Color background = frame.isDaytime() ? BG_COLOR_DAY : BG_COLOR_NIGHT;
+				MapTile tile = tiles.get(key);
+				if (tile == null || tile.background != background || !Arrays.equals(tile.signature, signature)) {
+					tile = renderTile(tileX, tileY, nodes, background, tile);
+					tile.signature = signature;
+					tiles.put(key, tile);
 				}
-				else if (settlement instanceof GoldMine) {
-					if (instance.getGoldVeinAmount(node) == 0) {
-						icon = goldMineExhaustedImage;
-					}
-					else {
-						icon = goldMineImage;
+				g.drawImage(tile.image, originX + tileX * TILE_SIZE, originY + tileY * TILE_SIZE, this);
+			}
+		}
+	}
+
+	// =======================================
+
+	private void indexTiles(Map map) {
+		// Works out which nodes can draw into each tile: a node's icons and labels reach NODE_EXTENT from its
+		// center, and the edges to its children are drawn with it. This is the index that keeps painting to the
+		// nodes that are on screen; it depends on the zoom, so it's worked out again when that changes.
+		tiledMap = map;
+		tiledZoomLevel = zoomLevel;
+		tileNodes = new HashMap<Long, ArrayList<MapNode>>();
+		tiles.clear();
+		int extent = isDetailed() ? NODE_EXTENT : getNodeRadius() + 2;
+		for (MapNode node: map.getNodeList()) {
+			int x = toMapPixel(node.getX());
+			int y = toMapPixel(node.getY());
+			int minX = x - extent;
+			int maxX = x + extent;
+			int minY = y - extent;
+			int maxY = y + extent;
+			for (MapNode child: node.getChildren()) {
+				minX = Math.min(minX, toMapPixel(child.getX()));
+				maxX = Math.max(maxX, toMapPixel(child.getX()));
+				minY = Math.min(minY, toMapPixel(child.getY()));
+				maxY = Math.max(maxY, toMapPixel(child.getY()));
+			}
+			for (int tileX = Math.floorDiv(minX, TILE_SIZE); tileX <= Math.floorDiv(maxX, TILE_SIZE); tileX++) {
+				for (int tileY = Math.floorDiv(minY, TILE_SIZE); tileY <= Math.floorDiv(maxY, TILE_SIZE); tileY++) {
+					long key = getTileKey(tileX, tileY);
+					ArrayList<MapNode> nodes = tileNodes.get(key);
+					if (nodes == null) {
+						nodes = new ArrayList<MapNode>();
+						tileNodes.put(key, nodes);
 					}
+					nodes.add(node); // nodes come in id order, which is the order they're painted in
 				}
-				if (icon != null) {
-					g.drawImage(icon.getImage(), screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2, this);
-				}
+			}
+		}
+	}
 
-				// Indicating when it is a building site and not yet useable:
-				if (settlement.isBuildingSite()) {
-					g.drawImage(hammerImage.getImage(), screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2, this);
-				}
+	// =======================================
+
+	private MapTile renderTile(int tileX, int tileY, ArrayList<MapNode> nodes, Color background, MapTile tile) {
+		// draws the tile's nodes, reusing the old image if there is one (tiles are opaque so they can just be copied to the screen)
+		if (tile == null) {
+			tile = new MapTile();
+			GraphicsConfiguration config = getGraphicsConfiguration();
+			if (config != null) {
+				tile.image = config.createCompatibleImage(TILE_SIZE, TILE_SIZE);
 			}
-			Wall wall = instance.getWallAtNode(node);
-			if (wall != null && !wall.isBuildingSite()) {
-				g.drawImage(wallIcons[wall.getLevel() - 1].getImage(), screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2, this);
+			else {
+				tile.image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
 			}
-
-			// unexplored text:
-			if (!instance.isNodeExplored(node)) {
-				g.setColor(Color.BLACK);
-				g.setFont(new Font("foo", Font.PLAIN, 16));
-				g.drawString("?", screenX - 2, screenY + 4);
+		}
+		tile.background = background;
+		Graphics g = tile.image.getGraphics();
+		g.setColor(background);
+		g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+		g.translate(-tileX * TILE_SIZE, -tileY * TILE_SIZE);
+
+		// all the edges go under all the nodes:
+		for (MapNode node: nodes) {
+			if (frame.isNodeExplored(node)) {
+				paintEdges(g, node);
 			}
-
-			if (instance.isNodeExplored(node)) {
-				paintNodeResourcesAndDefense(g, node, screenX, screenY);
+		}
+		for (MapNode node: nodes) {
+			if (!isNodeVisible(node)) {
+				continue;
 			}
-
-			// arable land:
-			if (settlement == null && instance.isNodeArable(node) && instance.isNodeExplored(node)) {
-				g.drawImage(arableLandIcon.getImage(), screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2, this);
+			if (isDetailed()) {
+				paintMapNode(g, node, toMapPixel(node.getX()), toMapPixel(node.getY()));
 			}
-			// gold veins:
-			if (settlement == null && instance.isNodeGoldVein(node) && instance.isNodeExplored(node)) {
-				g.drawImage(goldVeinIcon.getImage(), screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2, this);
+			else {
+				paintSimplifiedNode(g, node, toMapPixel(node.getX()), toMapPixel(node.getY()));
 			}
+		}
+		g.dispose();
+		return tile;
+	}
+
+	// =======================================
+
+	private boolean isNodeVisible(MapNode node) {
+		// the player can see explored nodes and their children
+		return node.getParent() == null || frame.isNodeExplored(node.getParent());
+	}
+
+	// =======================================
+
+	private void writeNodeSignature(int[] signature, int i, MapNode node) {
+		// Records everything paintMapNode (or paintSimplifiedNode) and paintEdges draw for the node, so a cached
+		// tile can be checked against the current state. Anything they start depending on has to be added here too.
+		GameInstance instance = frame;
+		Settlement settlement = instance.getSettlementAt(node);
+		Wall wall = instance.getWallAtNode(node);
+		Stronghold stronghold = instance.getStrongholdAt(node);
+		int flags = 0;
+		flags |= isNodeVisible(node) ? 1 : 0;
+		flags |= instance.isNodeExplored(node) ? 2 : 0;
+		flags |= instance.isNodeCaptured(node) ? 4 : 0;
+		flags |= instance.isNodeArable(node) ? 8 : 0;
+		flags |= instance.isNodeGoldVein(node) ? 16 : 0;
+		flags |= settlement != null && settlement.isBuildingSite() ? 32 : 0;
+		flags |= settlement instanceof GoldMine && instance.getGoldVeinAmount(node) == 0 ? 64 : 0;
+		flags |= wall != null && !wall.isBuildingSite() ? 128 : 0;
+		flags |= instance.getSortieAt(node) != null || (stronghold != null && instance.getSortieTargeting(stronghold) != null) ? 256 : 0;
+		flags |= stronghold != null ? 512 : 0;
+		signature[i] = flags;
+		signature[i + 1] = getSettlementIconIndex(settlement);
+		if (!isDetailed()) {
+			// simplified nodes don't show any numbers
+			return;
+		}
+		signature[i + 2] = settlement != null ? settlement.getGold() : 0;
+		signature[i + 3] = instance.getPopCountAtNode(node);
+		signature[i + 4] = wall != null ? wall.getLevel() : 0;
+		signature[i + 5] = instance.isNodeCaptured(node) ? instance.getDefenseRating(node) : 0;
+		signature[i + 6] = stronghold != null && instance.isNodeExplored(node) ? stronghold.getStrength(instance) : 0;
+	}
+
+	// =======================================
+
+	private static int getSettlementIconIndex(Settlement settlement) {
+		// which icon a settlement is drawn with (and at what level), as a number for node signatures
+		if (settlement == null) {
+			return 0;
+		}
+		int type = 5;
+		if (settlement instanceof Peddler) {
+			type = 1;
+		}
+		else if (settlement instanceof Capital) {
+			type = 2;
+		}
+		else if (settlement instanceof City) {
+			type = 3;
+		}
+		else if (settlement instanceof Farm) {
+			type = 4;
+		}
+		return type * 16 + settlement.getLevel();
+	}
+
+	// =======================================
+
+	private void paintAttack(Graphics g, FrontierAttack attack) {
+		// shows how close an attack is to breaking through as a ring around the node, drawn over the cached map
+		MapNode node = attack.getTargetNode();
+		int screenX = originX + toMapPixel(node.getX());
+		int screenY = originY + toMapPixel(node.getY());
+		int radius = getNodeRadius();
+		if (screenX + radius < 0 || screenX - radius > getWidth() || screenY + radius < 0 || screenY - radius > getHeight()) {
+			return;
+		}
+		Area ring = new Area(new Ellipse2D.Double(screenX - radius - 4, screenY - radius - 4, radius * 2 + 8, radius * 2 + 8));
+		ring.subtract(new Area(new Ellipse2D.Double(screenX - radius - 2, screenY - radius - 2, radius * 2 + 4, radius * 2 + 4)));
+		Graphics2D ringGraphics = (Graphics2D)g.create();
+		ringGraphics.clip(ring);
+		ringGraphics.setColor(Color.RED);
+		double danger = attack.getCurrentStrength() / frame.getDefenseRating(node);
+		ringGraphics.fillArc(screenX - radius - 4, screenY - radius - 4, radius * 2 + 8, radius * 2 + 8, 270, (int)(-360 * danger));
+		ringGraphics.dispose();
+	}
+
+	// =======================================
+
+	private void paintMapNode(Graphics g, MapNode node, int screenX, int screenY) {
+		// draws the node centered at the given point
+		GameInstance instance = frame;
+		Settlement settlement = instance.getSettlementAt(node);
 
-			// Enemy strongholds:
-			if (instance.isNodeExplored(node) && instance.getStrongholdAt(node) != null) {
-				g.drawImage(strongholdImage.getImage(), screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2, this);
+		// draw circle and stuff inside it
+		if (instance.isNodeCaptured(node)) {
+			g.setColor(Color.BLUE);
+		}
+		else {
+			g.setColor(Color.BLACK);
+		}
+		g.fillOval(screenX - NODE_RADIUS - 2, screenY - NODE_RADIUS - 2, NODE_RADIUS * 2 + 4, NODE_RADIUS * 2 + 4);
+		g.setColor(Color.WHITE);
+		g.fillOval(screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2);
+
+		// settlement icon:
+		if (instance.isNodeExplored(node) && settlement != null) {
+			String icon = null;
+			if (settlement instanceof Peddler) {
+				icon = "peddler";
+			}
+			else if(settlement instanceof Capital) {
+				icon = "capital" + settlement.getLevel();
+			}
+			else if (settlement instanceof City) {
+				icon = "city" + settlement.getLevel();
+			}
+			else if (settlement instanceof Farm) {
+				icon = "farm" + settlement.getLevel();
+			}
+			else if (settlement instanceof GoldMine) {
+				if (instance.getGoldVeinAmount(node) == 0) {
+					icon = "gold_mine_exhausted";
+				}
+				else {
+					icon = "gold_mine";
+				}
+			}
+			if (icon != null) {
+				IconManager.draw(g, icon, screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2);
 			}
 
-			// indicate monarch's location:
-			if (instance.getMonarchNodeLocation() == node) {
-				ImageIcon penant = instance.getSpecialRetinue() == null ? penantImage : doublePenantImage;
-				g.drawImage(penant.getImage(), screenX + NODE_RADIUS - 6, screenY - 34, 24, 44, this);
+			// Indicating when it is a building site and not yet useable:
+			if (settlement.isBuildingSite()) {
+				IconManager.draw(g, "hammer", screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2);
 			}
 		}
+		Wall wall = instance.getWallAtNode(node);
+		if (wall != null && !wall.isBuildingSite()) {
+			IconManager.draw(g, "wall" + wall.getLevel(), screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2);
+		}
+
+		// unexplored text:
+		if (!instance.isNodeExplored(node)) {
+			g.setColor(Color.BLACK);
+			g.setFont(new Font("foo", Font.PLAIN, 16));
+			g.drawString("?", screenX - 2, screenY + 4);
+		}
 
-		// if explored, draw children (i.e. the recursion part)
 		if (instance.isNodeExplored(node)) {
-			for (MapNode child: node.getChildren()) {
-				paintMapNode(g, child);
-			}
+			paintNodeResourcesAndDefense(g, node, screenX, screenY);
+		}
+
+		// arable land:
+		if (settlement == null && instance.isNodeArable(node) && instance.isNodeExplored(node)) {
+			IconManager.draw(g, "arable_land", screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2);
+		}
+		// gold veins:
+		if (settlement == null && instance.isNodeGoldVein(node) && instance.isNodeExplored(node)) {
+			IconManager.draw(g, "gold_vein", screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2);
+		}
+
+		// Enemy strongholds:
+		if (instance.isNodeExplored(node) && instance.getStrongholdAt(node) != null) {
+			IconManager.draw(g, "stronghold", screenX - NODE_RADIUS, screenY - NODE_RADIUS, NODE_RADIUS * 2, NODE_RADIUS * 2);
 		}
 	}
 
@@ -219,7 +427,7 @@ public class MapPanel extends JComponent {
 	private void paintNodeResourcesAndDefense(Graphics g, MapNode node, int x, int y) {
 		// shows gold, citizens, defense level, etc
 		// node is centered at (x, y) on the component
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
+		GameInstance instance = frame;
 		Settlement settlement = instance.getSettlementAt(node);
 
 		g.setFont(new Font("foo", Font.PLAIN, 10));
@@ -231,7 +439,7 @@ public class MapPanel extends JComponent {
 				infoX = x - NODE_RADIUS + 2;
 				infoY = y - NODE_RADIUS - 8;
 			}
-			g.drawImage(goldImage.getImage(), infoX - 14, infoY - 12, 24, 22, this);
+			IconManager.draw(g, "gold", infoX - 14, infoY - 12, 24, 22);
 			g.setColor(Color.BLACK);
 			g.drawString("x " + settlement.getGold(), infoX + 2, infoY + 5);
 		}
@@ -244,7 +452,7 @@ public class MapPanel extends JComponent {
 				infoX = x + NODE_RADIUS - 6;
 				infoY = y - NODE_RADIUS - 8;
 			}
-			g.drawImage(genericPopImage.getImage(), infoX - 16, infoY - 12, 22, 18, this);
+			IconManager.draw(g, "subject_generic", infoX - 16, infoY - 12, 22, 18);
 			g.setColor(Color.BLACK);
 			
 			g.drawString("x " + instance.getPopCountAtNode(node), infoX + 2, infoY + 5);
@@ -253,31 +461,67 @@ public class MapPanel extends JComponent {
 		// defense rating:
 		if (instance.isNodeCaptured(node)) {
 			int defenseRating = instance.getDefenseRating(node);
-			g.drawImage(defenseIcon.getImage(), x - 16, y + NODE_RADIUS, 18, 18, this);
+			IconManager.draw(g, "defense", x - 16, y + NODE_RADIUS, 18, 18);
 			g.setColor(Color.BLACK);
 			g.drawString("x " + defenseRating, x, y + NODE_RADIUS + 10);
 		}
 		// enemy strength rating:
 		Stronghold stronghold = instance.getStrongholdAt(node);
 		if (stronghold != null && instance.isNodeExplored(node)) {
-			g.drawImage(powerIcon.getImage(), x - 16, y + NODE_RADIUS, 18, 18, this);
+			IconManager.draw(g, "enemy_strength", x - 16, y + NODE_RADIUS, 18, 18);
 			g.setColor(Color.BLACK);
 			g.drawString("x " + stronghold.getStrength(instance), x, y + NODE_RADIUS + 10);
 		}
 		// sortie icon:
 		if (instance.getSortieAt(node) != null || (stronghold != null && instance.getSortieTargeting(stronghold) != null)) {
-			g.drawImage(sortieImage.getImage(), x - 9, y + NODE_RADIUS + 20, 18, 18, this);
+			IconManager.draw(g, "sortie", x - 9, y + NODE_RADIUS + 20, 18, 18);
+		}
+	}
+
+	// =======================================
+
+	private void paintSimplifiedNode(Graphics g, MapNode node, int screenX, int screenY) {
+		// draws the node as it looks zoomed out: just the circle, with a dot for whatever is there
+		GameInstance instance = frame;
+		int radius = getNodeRadius();
+		g.setColor(instance.isNodeCaptured(node) ? Color.BLUE : Color.BLACK);
+		g.fillOval(screenX - radius - 1, screenY - radius - 1, radius * 2 + 2, radius * 2 + 2);
+		g.setColor(Color.WHITE);
+		g.fillOval(screenX - radius + 1, screenY - radius + 1, radius * 2 - 2, radius * 2 - 2);
+		if (!instance.isNodeExplored(node) || radius < 4) {
+			return;
+		}
+
+		Settlement settlement = instance.getSettlementAt(node);
+		Color dot = null;
+		if (instance.getStrongholdAt(node) != null) {
+			dot = Color.RED;
+		}
+		else if (settlement != null && settlement.isBuildingSite()) {
+			dot = Color.LIGHT_GRAY;
+		}
+		else if (settlement instanceof Farm) {
+			dot = Color.GREEN;
+		}
+		else if (settlement instanceof GoldMine) {
+			dot = Color.ORANGE;
+		}
+		else if (settlement != null) {
+			dot = Color.DARK_GRAY;
+		}
+		if (dot != null) {
+			g.setColor(dot);
+			g.fillOval(screenX - radius / 2, screenY - radius / 2, radius, radius);
 		}
 	}
 
 	// =======================================
 
 	private void paintMonarch(Graphics g) {
-		// Only used when monarch is not at a node.
-		java.awt.geom.Point2D.Double center = gui.getCallbackManager().getCurrentGame().getMonarchLocation();
-		java.awt.geom.Point2D.Double monarchLoc = gui.getCallbackManager().getCurrentGame().getMonarchLocation(); 
-		int screenX = getWidth() / 2 + (int)Math.round((monarchLoc.getX() - center.getX()) * PX_PER_MAPCOORD);
-		int screenY = getHeight() / 2 + (int)Math.round((monarchLoc.getY() - center.getY()) * PX_PER_MAPCOORD);
+		// Used when monarch is not at a node, or when the map is too zoomed out for the penant.
+		java.awt.geom.Point2D.Double monarchLoc = frame.getMonarchLocation();
+		int screenX = originX + toMapPixel(monarchLoc.getX());
+		int screenY = originY + toMapPixel(monarchLoc.getY());
 
 		g.setColor(Color.BLUE);
 		g.fillOval(screenX - 3, screenY - 3, 6, 6);
@@ -285,26 +529,31 @@ public class MapPanel extends JComponent {
 
 	// =======================================
 
-	private void paintEdges(Graphics g, MapNode node) {
-		// draw edges to this node's children.
-		java.awt.geom.Point2D.Double center = gui.getCallbackManager().getCurrentGame().getMonarchLocation();
-		int screenX = getWidth() / 2 + (int)Math.round((node.getX() - center.getX()) * PX_PER_MAPCOORD); // coords of node
-		int screenY = getHeight() / 2 + (int)Math.round((node.getY() - center.getY()) * PX_PER_MAPCOORD);
+	private void paintPenant(Graphics g, MapNode node) {
+		// indicates the monarch's location when they're at a node
+		int screenX = originX + toMapPixel(node.getX());
+		int screenY = originY + toMapPixel(node.getY());
+		String penant = frame.getSpecialRetinue() == null ? "penant" : "double_penant";
+		IconManager.draw(g, penant, screenX + NODE_RADIUS - 6, screenY - 34, 24, 44);
+	}
 
+	// =======================================
+
+	private void paintEdges(Graphics g, MapNode node) {
+		// draw edges to this node's children (in map pixels, for the tile cache)
+		int x = toMapPixel(node.getX());
+		int y = toMapPixel(node.getY());
 		g.setColor(Color.BLACK);
 		for (MapNode child: node.getChildren()) {
-			int childX = getWidth() / 2 + (int)Math.round((child.getX() - center.getX()) * PX_PER_MAPCOORD);
-			int childY = getHeight() / 2 + (int)Math.round((child.getY() - center.getY()) * PX_PER_MAPCOORD);
-
-			g.drawLine(screenX, screenY, childX, childY);
+			g.drawLine(x, y, toMapPixel(child.getX()), toMapPixel(child.getY()));
 		}
 	}
 
 	// =======================================
 
 	private void paintClock(Graphics g) {
-		int clockWidth = 224;
-		int clockHeight = 28;
+		int clockWidth = CLOCK_WIDTH;
+		int clockHeight = CLOCK_HEIGHT;
 
 		//background:
 		g.setColor(Color.WHITE);
@@ -314,7 +563,7 @@ public class MapPanel extends JComponent {
 
 		// text indicating day or night:
 		g.setFont(new Font("foo", Font.PLAIN, 14));
-		boolean isDaytime = gui.getCallbackManager().getCurrentGame().isDaytime();
+		boolean isDaytime = frame.isDaytime();
 		g.drawString(isDaytime ? "Day" : "Night", (getWidth() - clockWidth) / 2 + 4, 18);
 
 		int timeLineX = (getWidth() - clockWidth) / 2 + 44;
@@ -333,7 +582,7 @@ public class MapPanel extends JComponent {
 		else {
 			g.setColor(Color.BLUE);
 		}
-		double progress = gui.getCallbackManager().getCurrentGame().getDayNightTime();
+		double progress = frame.getDayNightTime();
 		g.fillRect(timeLineX + (int)(progress * timeLineLength) - 2, timeLineY - tickmarkHeight + 1, 4, tickmarkHeight);
 	}
 
@@ -355,8 +604,8 @@ public class MapPanel extends JComponent {
 		g.drawString("x " + sortie.getTarget().getStrength(instance), getWidth() - w + 86, getHeight() - h + 28);
 		g.drawString("(Distance penalty: " + (int)(100 * sortie.getDistancePenalty()) + "%)", getWidth() - w + 114, getHeight() - h + 28);
 		// sword icons:
-		g.drawImage(sortieImage.getImage(), getWidth() - w + 8, getHeight() - h + 15, 20, 20, this);
-		g.drawImage(powerIcon.getImage(), getWidth() - w + 66, getHeight() - h + 15, 20, 20, this);
+		IconManager.draw(g, "sortie", getWidth() - w + 8, getHeight() - h + 15, 20, 20);
+		IconManager.draw(g, "enemy_strength", getWidth() - w + 66, getHeight() - h + 15, 20, 20);
 
 		// victory progress:
 		g.drawString("Victory in:", getWidth() - w + 8, getHeight() - h + 61);
@@ -388,7 +637,7 @@ public class MapPanel extends JComponent {
 		g.drawString(instance.getSpecialRetinueName(), 36, 13);
 
 		// double-penant icon:
-		g.drawImage(doublePenantImage.getImage(), 6, 6, 28, 38, this);
+		IconManager.draw(g, "double_penant", 6, 6, 28, 38);
 
 		// Print population:
 		int subjectX = 36;
@@ -396,7 +645,7 @@ public class MapPanel extends JComponent {
 		for (SubjectType subjectType: SubjectType.values()) {
 			int n = instance.getSpecialRetinue().getCount(subjectType);
 			if (n > 0) {
-				g.drawImage(NodeControlPanel.getImageForSubjectType(subjectType).getImage(), subjectX, subjectY - 10, 22, 16, this);
+				IconManager.draw(g, NodeControlPanel.getImageForSubjectType(subjectType), subjectX, subjectY - 10, 22, 16);
 				g.drawString("x " + n, subjectX + 19, subjectY + 3);
 				subjectX += 44;
 			}
@@ -406,10 +655,10 @@ public class MapPanel extends JComponent {
 	// =======================================
 
 	private void paintKingdomView(Graphics g) {
-		int w = 220;
+		int w = KINGDOM_VIEW_WIDTH;
 		int h;
 		if (isKingdomViewOpen) {
-			h = 160;
+			h = KINGDOM_VIEW_HEIGHT;
 		}
 		else {
 			h = 20;
@@ -426,7 +675,7 @@ public class MapPanel extends JComponent {
 			g.drawString("Press 'k' to open Kingdom Overview", 4, getHeight() - h + 12);
 		}
 		else {
-			GameInstance instance = gui.getCallbackManager().getCurrentGame();
+			GameInstance instance = frame;
 			int y = getHeight() - h + 12;
 
 			g.drawString("Kingdom Overview", 20, y);
@@ -453,16 +702,51 @@ public class MapPanel extends JComponent {
 
 	// =======================================
 
+	public void repaintClock() {
+		repaint((getWidth() - CLOCK_WIDTH) / 2, 0, CLOCK_WIDTH + 1, CLOCK_HEIGHT + 1);
+	}
+
+	// =======================================
+
+	public void repaintKingdomView() {
+		// (when it's closed, it doesn't show anything that changes)
+		if (isKingdomViewOpen) {
+			repaint(0, getHeight() - KINGDOM_VIEW_HEIGHT, KINGDOM_VIEW_WIDTH + 1, KINGDOM_VIEW_HEIGHT + 1);
+		}
+	}
+
+	// =======================================
+
+	public void zoomIn() {
+		zoomLevel = Math.max(0, zoomLevel - 1);
+	}
+
+	// =======================================
+
+	public void zoomOut() {
+		zoomLevel = Math.min(ZOOM_LEVELS.length - 1, zoomLevel + 1);
+	}
+
+	// =======================================
+
 	private void paintPopulation(Graphics g, Population population, int x, int y) {
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
+		GameInstance instance = frame;
 		for (SubjectType subjectType: SubjectType.values()) {
 			int n = population.getCount(subjectType);
 			if (n > 0) {
-				g.drawImage(NodeControlPanel.getImageForSubjectType(subjectType).getImage(), x, y, 22, 16, this);
+				IconManager.draw(g, NodeControlPanel.getImageForSubjectType(subjectType), x, y, 22, 16);
 				g.drawString("x " + n, x + 17, y + 8);
 				x += 40;
 			}
 		}
 	}
 
+	// =======================================
+
+	private static class MapTile {
+		BufferedImage image;
+		Color background; // day and night ones differ
+		int[] signature; // the node signatures it was drawn with
+	}
+
 }
\ No newline at end of file
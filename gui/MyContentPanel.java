@@ -1,8 +1,10 @@
 // Superclass for any panel that sits directly beneath the GUI JFrame
 
 package gui;
+import core.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.util.Set;
 import javax.swing.*;
 import javax.swing.border.*;
 
@@ -25,6 +27,12 @@ public abstract class MyContentPanel extends JPanel {
 
 	public abstract void keyReleased(KeyEvent e);
 
+	// ==================================
+
+	public void repaintChanges(Set<GameInstance.Change> changes) {
+		// panels that show the game can repaint just the parts affected by the changes
+		repaint();
+	}
 
 
 }
\ No newline at end of file
@@ -11,47 +11,9 @@ public class NodeControlPanel extends JPanel {
 
 	private static final Color COLOR_GOLDENROD = new Color(218, 165, 32);
 	private static final Color COLOR_BROWN = new Color(165, 42, 42);
-	private static final ImageIcon idleSubjectImage = new ImageIcon("images/subject_idle.png");
-	private static final ImageIcon soldierImage = new ImageIcon("images/subject_soldier.png");
-	private static final ImageIcon workerImage = new ImageIcon("images/subject_worker.png");
-	private static final ImageIcon farmerImage = new ImageIcon("images/subject_farmer.png");
-	private static final ImageIcon captainImage = new ImageIcon("images/subject_captain.png");
-	private static final ImageIcon buttonRetinueMgmtImage = new ImageIcon("images/button_retinue_mgmt.png");
-	private static final ImageIcon buttonConstruction = new ImageIcon("images/hammer.png");
-	private static final ImageIcon buttonTreasury = new ImageIcon("images/treasury.png");
-	private static final ImageIcon buttonBack = new ImageIcon("images/back.png");
-	private static final ImageIcon buttonRetinueRecruit = new ImageIcon("images/button_retinue_recruit.png");
-	private static final ImageIcon buttonRetinueLeave = new ImageIcon("images/button_retinue_leave.png");
-	private static final ImageIcon buttonRecruitIdleSubject = new ImageIcon("images/button_recruit_idle.png");
-	private static final ImageIcon buttonLeaveIdleSubject = new ImageIcon("images/button_leave_idle.png");
-	private static final ImageIcon buttonLeaveSoldier = new ImageIcon("images/button_leave_soldier.png");
-	private static final ImageIcon buttonRecruitSoldier = new ImageIcon("images/button_recruit_soldier.png");
-	private static final ImageIcon buttonRecruitWorker = new ImageIcon("images/button_recruit_worker.png");
-	private static final ImageIcon buttonLeaveWorker = new ImageIcon("images/button_leave_worker.png");
-	private static final ImageIcon buttonRecruitFarmer = new ImageIcon("images/button_recruit_farmer.png");
-	private static final ImageIcon buttonLeaveFarmer = new ImageIcon("images/button_leave_farmer.png");
-	private static final ImageIcon buttonRecruitCaptain = new ImageIcon("images/button_recruit_captain.png");
-	private static final ImageIcon buttonLeaveCaptain = new ImageIcon("images/button_leave_captain.png");
-	private static final ImageIcon buttonEquipMenu = new ImageIcon("images/button_equipment.png");
-	private static final ImageIcon buttonEquipWorker = new ImageIcon("images/button_equip_worker.png");
-	private static final ImageIcon buttonEquipSoldier = new ImageIcon("images/button_equip_soldier.png");
-	private static final ImageIcon buttonEquipFarmer = new ImageIcon("images/button_equip_farmer.png");
-	private static final ImageIcon buttonEquipCaptain = new ImageIcon("images/button_equip_captain.png");
-	private static final ImageIcon buttonWithdrawOneGold = new ImageIcon("images/button_withdraw_one_gold.png");
-	private static final ImageIcon buttonDepositOneGold = new ImageIcon("images/button_deposit_one_gold.png");
-	private static final ImageIcon buttonWithdrawTenGold = new ImageIcon("images/button_withdraw_ten_gold.png");
-	private static final ImageIcon buttonDepositTenGold = new ImageIcon("images/button_deposit_ten_gold.png");
-	private static final ImageIcon buttonCapture = new ImageIcon("images/capture.png");
-	private static final ImageIcon buttonFarm = new ImageIcon("images/farm.png");
-	private static final ImageIcon buttonCity = new ImageIcon("images/city.png");
-	private static final ImageIcon buttonConstructionUpgrade = new ImageIcon("images/upgrade_building.png");
-	private static final ImageIcon buttonSortie = new ImageIcon("images/sortie.png");
-	private static final ImageIcon buttonCancel = new ImageIcon("images/cancel.png");
-	private static final ImageIcon buttonAddWall = new ImageIcon("images/add_wall.png");
-	private static final ImageIcon buttonUpgradeWall = new ImageIcon("images/upgrade_wall.png");
-	private static final ImageIcon buttonGoldMine = new ImageIcon("images/gold_mine.png");
 	private GUI gui;
 	private String menu; // e.g. "main" or "treasury"
+	private GameInstance frame; // the render frame currently being painted or acted on
 
 
 	public NodeControlPanel(GUI g, int w, int h) {
@@ -86,7 +48,8 @@ public class NodeControlPanel extends JPanel {
 	// ========================================
 
 	private void processButtonPress(String buttonLetter) {
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
+		frame = gui.getCallbackManager().getRenderFrame();
+		GameInstance instance = frame;
 		MapNode node = instance.getMonarchNodeLocation();
 		Settlement settlement = instance.getSettlementAt(node);
 		ButtonInfo info = getButtonInfo(buttonLetter);
@@ -116,13 +79,13 @@ public class NodeControlPanel extends JPanel {
 			}
 			if (buttonLetter.equals("Y")) {
 				if (!instance.isNodeCaptured(node)) {
-					instance.attemptCaptureNode(node);
+					submit(new PlayerCommand(PlayerCommand.Type.CAPTURE_NODE, node));
 				}
 				else if (instance.getSortieAt(node) != null) {
-					instance.cancelSortie(instance.getSortieAt(node));
+					submit(new PlayerCommand(PlayerCommand.Type.CANCEL_SORTIE, node));
 				}
 				else {
-					instance.attemptLaunchSortie();
+					submit(new PlayerCommand(PlayerCommand.Type.LAUNCH_SORTIE));
 				}
 			}
 		}
@@ -135,17 +98,17 @@ public class NodeControlPanel extends JPanel {
 				return;
 			}
 			if (buttonLetter.equals("W")) {
-				instance.attemptGoldWithdrawal(1);
+				submit(new PlayerCommand(PlayerCommand.Type.WITHDRAW_GOLD, 1));
 				return;
 			}
 			if (buttonLetter.equals("E")) {
-				instance.attemptGoldWithdrawal(10);
+				submit(new PlayerCommand(PlayerCommand.Type.WITHDRAW_GOLD, 10));
 			}
 			if (buttonLetter.equals("R")) {
-				instance.attemptGoldDeposit(1);
+				submit(new PlayerCommand(PlayerCommand.Type.DEPOSIT_GOLD, 1));
 			}
 			if (buttonLetter.equals("T")) {
-				instance.attemptGoldDeposit(10);
+				submit(new PlayerCommand(PlayerCommand.Type.DEPOSIT_GOLD, 10));
 			}
 		}
 
@@ -167,7 +130,7 @@ public class NodeControlPanel extends JPanel {
 				return;
 			}
 			if (buttonLetter.equals("Y")) {
-				instance.attemptLeaveSpecialRetinue();
+				submit(new PlayerCommand(PlayerCommand.Type.LEAVE_SPECIAL_RETINUE));
 			}
 		}
 
@@ -196,10 +159,10 @@ public class NodeControlPanel extends JPanel {
 
 			if (s != null) {
 				if (menu.equals("subject_recruit")) {
-					instance.attemptRecruitSubject(s);
+					submit(new PlayerCommand(PlayerCommand.Type.RECRUIT_SUBJECT, s));
 				}
 				else {
-					instance.attemptLeaveSubject(s);
+					submit(new PlayerCommand(PlayerCommand.Type.LEAVE_SUBJECT, s));
 				}
 			}
 		}
@@ -225,7 +188,7 @@ public class NodeControlPanel extends JPanel {
 			}
 
 			if (s != null) {
-				instance.attemptEquipSubject(s);
+				submit(new PlayerCommand(PlayerCommand.Type.EQUIP_SUBJECT, s));
 			}
 		}
 
@@ -236,32 +199,49 @@ public class NodeControlPanel extends JPanel {
 				return;
 			}
 			if (buttonLetter.equals("W")) {
-				instance.attemptUpgradeSettlement();
+				submit(new PlayerCommand(PlayerCommand.Type.UPGRADE_SETTLEMENT));
 			}
 			if (buttonLetter.equals("E")) {
 				if (settlement == null) {
-					instance.attemptBuildNewCity(node);
+					submit(new PlayerCommand(PlayerCommand.Type.BUILD_CITY, node));
 				}
 			}
 			if (buttonLetter.equals("R")) {
 				if (settlement == null) {
-					instance.attemptBuildNewFarm(node);
+					submit(new PlayerCommand(PlayerCommand.Type.BUILD_FARM, node));
 				}
 			}
 			if (buttonLetter.equals("T")) {
-				instance.attemptBuildOrUpgradeWall();
+				submit(new PlayerCommand(PlayerCommand.Type.BUILD_OR_UPGRADE_WALL));
 			}
 			if (buttonLetter.equals("Y")) {
-				instance.attemptBuildGoldMine();
+				submit(new PlayerCommand(PlayerCommand.Type.BUILD_GOLD_MINE));
 			}
 		}
 	}
 
 	// ========================================
 
+	private void submit(PlayerCommand c) {
+		// the engine applies this at the start of its next update
+		gui.getCallbackManager().submitCommand(c);
+	}
+
+	// ========================================
+
+	public void paint(Graphics g) {
+		GameMetrics metrics = gui.getCallbackManager().getMetrics();
+		long start = metrics.startTimer();
+		super.paint(g);
+		metrics.record(GameMetrics.Section.PAINT, start);
+	}
+
+	// ========================================
+
 	public void paintComponent(Graphics g) {
 		int leftWidth = getWidth() - 290;
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
+		frame = gui.getCallbackManager().getRenderFrame();
+		GameInstance instance = frame;
 		Settlement settlement = instance.getMonarchNodeLocation() == null ? null : instance.getSettlementAt(instance.getMonarchNodeLocation());
 
 		// Left side buttons:
@@ -279,7 +259,7 @@ public class NodeControlPanel extends JPanel {
 			g.drawString(buttonLetters[i], 64 + i * 116, 18);
 			g.drawRoundRect(38 + i * 116, 30, 56, 56, 4, 4);
 			if (info.image != null) {
-				g.drawImage(info.image.getImage(), 38 + i * 116, 30, 56, 56, this);
+				IconManager.draw(g, info.image, 38 + i * 116, 30, 56, 56);
 			}
 
 			// images and labels which are context specific
@@ -301,7 +281,7 @@ public class NodeControlPanel extends JPanel {
 		
 
 		// hacky: use this frequently called method to check when monarch has left a node:
-		if (gui.getCallbackManager().getCurrentGame().getMonarchNodeLocation() == null) {
+		if (frame.getMonarchNodeLocation() == null) {
 			// reset menu state:
 			menu = "main";
 		}
@@ -311,7 +291,7 @@ public class NodeControlPanel extends JPanel {
 
 	private void paintNodeDetails(Graphics g, MapNode node, int x, int y) {
 		// Show info (not controls) about this node, with top-left at (x, y)
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
+		GameInstance instance = frame;
 		Settlement settlement = instance.getSettlementAt(node);
 		g.setColor(Color.BLACK);
 		g.setFont(new Font("foo", Font.PLAIN, 12));
@@ -337,7 +317,7 @@ public class NodeControlPanel extends JPanel {
 		for (SubjectType subjectType: SubjectType.values()) {
 			int n = instance.getPopulationAtNode(node, subjectType);
 			if (n > 0) {
-				g.drawImage(getImageForSubjectType(subjectType).getImage(), subjectX, textY - 10, 22, 16, this);
+				IconManager.draw(g, getImageForSubjectType(subjectType), subjectX, textY - 10, 22, 16);
 				g.drawString("x " + n, subjectX + 17, textY);
 				subjectX += 40;
 			}
@@ -428,7 +408,7 @@ public class NodeControlPanel extends JPanel {
 
 	private ButtonInfo getButtonInfo(String buttonLetter) {
 		// Determines image and label that go with a particular button in the current situation
-		GameInstance instance = gui.getCallbackManager().getCurrentGame();
+		GameInstance instance = frame;
 		MapNode node = instance.getMonarchNodeLocation();
 		if (node == null) {
 			return new ButtonInfo(); // with everything blank
@@ -445,7 +425,7 @@ public class NodeControlPanel extends JPanel {
 			if (buttonLetter.equals("W")) {
 				// construction menu is active whenever you are in friendly territory
 				if (instance.isNodeCaptured(node)) {
-					return new ButtonInfo("Construction", true, buttonConstruction);
+					return new ButtonInfo("Construction", true, "hammer");
 				}
 				else {
 					return new ButtonInfo();
@@ -454,7 +434,7 @@ public class NodeControlPanel extends JPanel {
 			if (buttonLetter.equals("E")) {
 				// treasury is available for at least withdrawal at all settlements
 				if (settlement != null && !settlement.isBuildingSite()) {
-					return new ButtonInfo("Treasury", true, buttonTreasury);
+					return new ButtonInfo("Treasury", true, "treasury");
 				}
 				else {
 					return new ButtonInfo();
@@ -463,7 +443,7 @@ public class NodeControlPanel extends JPanel {
 			if (buttonLetter.equals("R")) {
 				// citizen management is available anywhere tin human territory
 				if (instance.isNodeCaptured(node)) {
-					return new ButtonInfo("Retinue Mgmt", true, buttonRetinueMgmtImage);
+					return new ButtonInfo("Retinue Mgmt", true, "button_retinue_mgmt");
 				}
 				else {
 					return new ButtonInfo();
@@ -471,7 +451,7 @@ public class NodeControlPanel extends JPanel {
 			}
 			if (buttonLetter.equals("T")) {
 				if (settlement != null && !settlement.isBuildingSite() && (settlement instanceof Capital || settlement instanceof City)) {
-					return new ButtonInfo("Equip subjects", true, buttonEquipMenu);
+					return new ButtonInfo("Equip subjects", true, "button_equipment");
 				}
 				else {
 					return new ButtonInfo();
@@ -479,13 +459,13 @@ public class NodeControlPanel extends JPanel {
 			}
 			if (buttonLetter.equals("Y")) {
 				if (instance.canNodeBeCaptured(node)) {
-					return new ButtonInfo("Capture (" + instance.NODE_CAPTURE_COST + "gp)", true, buttonCapture);
+					return new ButtonInfo("Capture (" + instance.NODE_CAPTURE_COST + "gp)", true, "capture");
 				}
 				else if (instance.canSortieBeLaunched(node)) {
-					return new ButtonInfo("Launch sortie", true, buttonSortie);
+					return new ButtonInfo("Launch sortie", true, "sortie");
 				}
 				else if (instance.getSortieAt(node) != null) {
-					return new ButtonInfo("Cancel sortie", true, buttonCancel);
+					return new ButtonInfo("Cancel sortie", true, "cancel");
 				}
 			}
 		}
@@ -493,20 +473,20 @@ public class NodeControlPanel extends JPanel {
 		// Treasury sub-menu
 		else if (menu.equals("treasury")) {
 			if (buttonLetter.equals("Q")) {
-				return new ButtonInfo("Go back", true, buttonBack);
+				return new ButtonInfo("Go back", true, "back");
 			}
 			if (buttonLetter.equals("W")) {
-				return new ButtonInfo("Withdraw 1gp", true, buttonWithdrawOneGold);
+				return new ButtonInfo("Withdraw 1gp", true, "button_withdraw_one_gold");
 			}
 			if (buttonLetter.equals("E")) {
-				return new ButtonInfo("Withdraw 10gp", true, buttonWithdrawTenGold);
+				return new ButtonInfo("Withdraw 10gp", true, "button_withdraw_ten_gold");
 			}
 			if (settlement != null && settlement.allowsGoldDeposits()) {
 				if (buttonLetter.equals("R")) {
-					return new ButtonInfo("Deposit 1gp", true, buttonDepositOneGold);
+					return new ButtonInfo("Deposit 1gp", true, "button_deposit_one_gold");
 				}
 				if (buttonLetter.equals("T")) {
-					return new ButtonInfo("Deposit 10gp", true, buttonDepositTenGold);
+					return new ButtonInfo("Deposit 10gp", true, "button_deposit_ten_gold");
 				}
 			}
 		}
@@ -514,73 +494,73 @@ public class NodeControlPanel extends JPanel {
 		// Subject home menu:
 		else if (menu.equals("subject_main")) {
 			if (buttonLetter.equals("Q")) {
-				return new ButtonInfo("Go back", true, buttonBack);
+				return new ButtonInfo("Go back", true, "back");
 			}
 			if (buttonLetter.equals("W")) {
-				return new ButtonInfo("Recruit subjects", true, buttonRetinueRecruit);
+				return new ButtonInfo("Recruit subjects", true, "button_retinue_recruit");
 			}
 			if (buttonLetter.equals("E")) {
-				return new ButtonInfo("Leave subjects", true, buttonRetinueLeave);
+				return new ButtonInfo("Leave subjects", true, "button_retinue_leave");
 			}
 			if (buttonLetter.equals("Y")) {
 				if (instance.getSpecialRetinue() != null) {
-					return new ButtonInfo("Drop special retinue", true, buttonRetinueLeave);
+					return new ButtonInfo("Drop special retinue", true, "button_retinue_leave");
 				}
 			}
 		}
 		else if(menu.equals("subject_recruit") || menu.equals("subject_leave")) {
 			if (buttonLetter.equals("Q")) {
-				return new ButtonInfo("Go back", true, buttonBack);
+				return new ButtonInfo("Go back", true, "back");
 			}
 			if (buttonLetter.equals("W")) {
-				return new ButtonInfo("Idle", true, menu.equals("subject_recruit") ? buttonRecruitIdleSubject : buttonLeaveIdleSubject);
+				return new ButtonInfo("Idle", true, menu.equals("subject_recruit") ? "button_recruit_idle" : "button_leave_idle");
 			}
 			if (buttonLetter.equals("E")) {
-				return new ButtonInfo("Worker", true, menu.equals("subject_recruit") ? buttonRecruitWorker : buttonLeaveWorker);
+				return new ButtonInfo("Worker", true, menu.equals("subject_recruit") ? "button_recruit_worker" : "button_leave_worker");
 			}
 			if (buttonLetter.equals("R")) {
-				return new ButtonInfo("Soldier", true, menu.equals("subject_recruit") ? buttonRecruitSoldier : buttonLeaveSoldier);
+				return new ButtonInfo("Soldier", true, menu.equals("subject_recruit") ? "button_recruit_soldier" : "button_leave_soldier");
 			}
 			if (buttonLetter.equals("T")) {
-				return new ButtonInfo("Farmer", true, menu.equals("subject_recruit") ? buttonRecruitFarmer : buttonLeaveFarmer);
+				return new ButtonInfo("Farmer", true, menu.equals("subject_recruit") ? "button_recruit_farmer" : "button_leave_farmer");
 			}
 			if (buttonLetter.equals("Y")) {
-				return new ButtonInfo("Captain", true, menu.equals("subject_recruit") ? buttonRecruitCaptain : buttonLeaveCaptain);
+				return new ButtonInfo("Captain", true, menu.equals("subject_recruit") ? "button_recruit_captain" : "button_leave_captain");
 			}
 		}
 
 		// equipment sub-menu
 		else if (menu.equals("equip")) {
 			if (buttonLetter.equals("Q")) {
-				return new ButtonInfo("Go back", true, buttonBack);
+				return new ButtonInfo("Go back", true, "back");
 			}
 			if (buttonLetter.equals("E") && settlement.doesSellEquipment(SubjectType.WORKER)) {
-				return new ButtonInfo("Equip worker (" + instance.calculateEquipmentCost(SubjectType.WORKER) + "gp)", true, buttonEquipWorker);
+				return new ButtonInfo("Equip worker (" + instance.calculateEquipmentCost(SubjectType.WORKER) + "gp)", true, "button_equip_worker");
 			}
 			if (buttonLetter.equals("R") && settlement.doesSellEquipment(SubjectType.SOLDIER)) {
-				return new ButtonInfo("Equip soldier (" + instance.calculateEquipmentCost(SubjectType.SOLDIER) + "gp)", true, buttonEquipSoldier);
+				return new ButtonInfo("Equip soldier (" + instance.calculateEquipmentCost(SubjectType.SOLDIER) + "gp)", true, "button_equip_soldier");
 			}
 			if (buttonLetter.equals("T") && settlement.doesSellEquipment(SubjectType.FARMER)) {
-				return new ButtonInfo("Equip farmer (" + instance.calculateEquipmentCost(SubjectType.FARMER) + "gp)", true, buttonEquipFarmer);
+				return new ButtonInfo("Equip farmer (" + instance.calculateEquipmentCost(SubjectType.FARMER) + "gp)", true, "button_equip_farmer");
 			}
 			if (buttonLetter.equals("Y") && settlement.doesSellEquipment(SubjectType.CAPTAIN)) {
-				return new ButtonInfo("Equip captain (" + instance.calculateEquipmentCost(SubjectType.CAPTAIN) + "gp)", true, buttonEquipCaptain);
+				return new ButtonInfo("Equip captain (" + instance.calculateEquipmentCost(SubjectType.CAPTAIN) + "gp)", true, "button_equip_captain");
 			}
 		}
 
 		// construction sub-menu:
 		else if(menu.equals("construction")) {
 			if (buttonLetter.equals("Q")) {
-				return new ButtonInfo("Go back", true, buttonBack);
+				return new ButtonInfo("Go back", true, "back");
 			}
 			if (buttonLetter.equals("W")) {
 				if (settlement != null && !settlement.isUpgrading() && !settlement.isBuildingSite() && settlement.getLevel() < settlement.getMaxLevel() && instance.isSettlementUpgradeUnlocked(settlement)) {
-					return new ButtonInfo("Upgrade (" + settlement.getUpgradeCost() + "gp)", true, buttonConstructionUpgrade);
+					return new ButtonInfo("Upgrade (" + settlement.getUpgradeCost() + "gp)", true, "upgrade_building");
 				}
 			}
 			if (buttonLetter.equals("E")) {
 				if (instance.isNodeCaptured(node) && settlement == null && !instance.isTooCloseToCity(node)) {
-					return new ButtonInfo("Found new city (" + City.getCost(1) + "gp)", true, buttonCity);
+					return new ButtonInfo("Found new city (" + City.getCost(1) + "gp)", true, "city");
 				}
 			}
 			if ( buttonLetter.equals("R")) {
@@ -588,22 +568,22 @@ public class NodeControlPanel extends JPanel {
 					&& settlement == null && instance.getCapital().getLevel() >= instance.FARM_UNLOCK_LEVEL
 					&& instance.isNodeArable(node))
 				{
-					return new ButtonInfo("Build new farm (" + Farm.getCost(1) + "gp)", true, buttonFarm);
+					return new ButtonInfo("Build new farm (" + Farm.getCost(1) + "gp)", true, "farm");
 				}
 			}
 			if (buttonLetter.equals("T")) {
 				if (instance.isNodeCaptured(node) && (settlement == null || (!settlement.isBuildingSite() && !settlement.isUpgrading()))) {
 					if (wall == null) {
-						return new ButtonInfo("Build wall (" + Wall.getCost(1) + "gp)", true, buttonAddWall);
+						return new ButtonInfo("Build wall (" + Wall.getCost(1) + "gp)", true, "add_wall");
 					}
 					else if (wall.getLevel() < Wall.MAX_LEVEL && !wall.isUpgrading() && !wall.isBuildingSite()) {
-						return new ButtonInfo("Upgrade wall (" + wall.getUpgradeCost() + "gp)", true, buttonUpgradeWall);
+						return new ButtonInfo("Upgrade wall (" + wall.getUpgradeCost() + "gp)", true, "upgrade_wall");
 					}
 				}
 			}
 			if (buttonLetter.equals("Y")) {
 				if (instance.isNodeCaptured(node) && settlement == null && instance.isNodeGoldVein(node) && (wall == null || !wall.isUpgrading())) {
-					return new ButtonInfo("Build gold mine", true, buttonGoldMine);
+					return new ButtonInfo("Build gold mine", true, "gold_mine");
 				}
 			}
 		}
@@ -614,13 +594,14 @@ public class NodeControlPanel extends JPanel {
 
 	// ========================================
 
-	public static ImageIcon getImageForSubjectType(SubjectType s) {
+	public static String getImageForSubjectType(SubjectType s) {
+		// the name of its image in IconManager
 		switch(s) {
-			case IDLE: return idleSubjectImage;
-			case SOLDIER: return soldierImage;
-			case WORKER: return workerImage;
-			case FARMER: return farmerImage;
-			case CAPTAIN: return captainImage;
+			case IDLE: return "subject_idle";
+			case SOLDIER: return "subject_soldier";
+			case WORKER: return "subject_worker";
+			case FARMER: return "subject_farmer";
+			case CAPTAIN: return "subject_captain";
 			default: return null;
 		}
 	}
@@ -634,7 +615,7 @@ public class NodeControlPanel extends JPanel {
 
 		protected String label;
 		protected boolean isActive;
-		protected ImageIcon image;
+		protected String image; // name in IconManager
 
 		public ButtonInfo() {
 			// leave everything false, null, etc
@@ -645,7 +626,7 @@ public class NodeControlPanel extends JPanel {
 			isActive = b;
 		}
 
-		public ButtonInfo(String s, boolean b, ImageIcon i) {
+		public ButtonInfo(String s, boolean b, String i) {
 			this(s, b);
 			image = i;
 		}